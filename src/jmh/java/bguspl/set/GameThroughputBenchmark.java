@@ -0,0 +1,88 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.GameStats;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * End to end game throughput benchmark: runs games of computer players only, with no user interface and no table
+ * delays (pressing random slots, or claiming the sets on the table with strategy=sets, at most keys key presses per
+ * second per player, or as fast as they are handled with keys=0), and reports claims, verdicts, collected sets per second and claim to verdict latency percentiles.
+ * Run with: mvn -P benchmark compile exec:exec -Dbenchmark.main=bguspl.set.GameThroughputBenchmark
+ *           -Dbenchmark.args="players=2,4,8 tables=3x4,4x5 seconds=10 strategy=sets keys=0"
+ */
+public class GameThroughputBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] players = {"2", "4", "8"};
+        String[] tables = {"3x4"};
+        double seconds = 10;
+        String strategy = "random";
+        String keys = "0";
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue[0].equals("players")) players = keyValue[1].split(",");
+            else if (keyValue[0].equals("tables")) tables = keyValue[1].split(",");
+            else if (keyValue[0].equals("seconds")) seconds = Double.parseDouble(keyValue[1]);
+            else if (keyValue[0].equals("strategy")) strategy = keyValue[1];
+            else if (keyValue[0].equals("keys")) keys = keyValue[1];
+            else throw new IllegalArgumentException("unknown argument: " + arg);
+        }
+
+        System.out.printf("%7s %6s %8s %12s %12s %10s %10s %10s %10s %10s %10s%n", "players", "table", "seconds",
+                "claims/s", "verdicts/s", "sets/s", "stale/s", "p50 (us)", "p90 (us)", "p99 (us)", "max (us)");
+        for (String table : tables)
+            for (String playerCount : players)
+                run(Integer.parseInt(playerCount), table, seconds, strategy, keys);
+    }
+
+    private static void run(int playerCount, String tableSize, double seconds, String strategy, String keys)
+            throws InterruptedException {
+        String[] rowsColumns = tableSize.split("x");
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(playerCount));
+        properties.put("Rows", rowsColumns[0]);
+        properties.put("Columns", rowsColumns[1]);
+        properties.put("ComputerStrategy", strategy);
+        properties.put("ComputerKeysPerSecond", keys);
+        properties.put("Hints", "False");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+
+        Logger logger = Logger.getLogger("GameThroughputBenchmark");
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new NullUserInterface(), new UtilImpl(config));
+
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        Thread dealerThread = env.threads.newThread(dealer, "dealer");
+        long start = System.nanoTime();
+        dealerThread.start();
+        dealerThread.join((long) (seconds * 1000));
+        if (dealerThread.isAlive()) {
+            dealer.terminate();
+            dealerThread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        GameStats stats = dealer.stats();
+        System.out.printf("%7d %6s %8.2f %12.1f %12.1f %10.1f %10.1f %10d %10d %10d %10d%n", playerCount, tableSize,
+                elapsed, stats.claimsSubmitted() / elapsed, stats.claimsVerified() / elapsed,
+                stats.setsCollected() / elapsed, stats.staleClaims() / elapsed,
+                stats.latencyPercentileNanos(50) / 1000, stats.latencyPercentileNanos(90) / 1000,
+                stats.latencyPercentileNanos(99) / 1000, stats.latencyPercentileNanos(100) / 1000);
+    }
+}
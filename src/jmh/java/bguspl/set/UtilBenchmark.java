@@ -0,0 +1,119 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks for the set finding engine (UtilImpl).
+ * Run with: mvn -P benchmark compile exec:exec (the GC profiler is on by default, to report allocation rates).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UtilBenchmark {
+
+    /**
+     * The features of the cards, as featureSize:featureCount.
+     */
+    @Param({"3:4", "3:7", "4:4"})
+    public String features;
+
+    private Util util;
+    private int[] set;
+    private int[] features1;
+    private int nextCard;
+    private int deckSize;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] sizes = features.split(":");
+        Properties properties = new Properties();
+        properties.put("FeatureSize", sizes[0]);
+        properties.put("FeatureCount", sizes[1]);
+        Logger logger = Logger.getLogger("UtilBenchmark");
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        util = new UtilImpl(config);
+        deckSize = config.deckSize;
+        set = util.findSets(IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList()), 1).get(0);
+        features1 = new int[config.featureCount];
+    }
+
+    /**
+     * The parameters of the findSets benchmark (kept apart so they do not multiply the other benchmarks).
+     */
+    @State(Scope.Thread)
+    public static class Search {
+
+        /**
+         * The cards to search: "table" for 12 random cards, "deck" for the full deck.
+         */
+        @Param({"table", "deck"})
+        public String cards;
+
+        /**
+         * The maximum number of sets to find: 1 (as in the end of game check) or all of them (as in hints).
+         */
+        @Param({"1", "2147483647"})
+        public int count;
+
+        private List<Integer> deck;
+
+        @Setup(Level.Trial)
+        public void setUp(UtilBenchmark benchmark) {
+            deck = IntStream.range(0, benchmark.deckSize).boxed().collect(Collectors.toList());
+            Collections.shuffle(deck, new Random(42));
+            if (cards.equals("table")) deck = deck.subList(0, Math.min(12, deck.size()));
+        }
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        return util.testSet(set);
+    }
+
+    @Benchmark
+    public int[] cardToFeatures() {
+        nextCard = (nextCard + 1) % deckSize;
+        return util.cardToFeatures(nextCard);
+    }
+
+    @Benchmark
+    public int[] cardToFeaturesIntoBuffer() {
+        nextCard = (nextCard + 1) % deckSize;
+        util.cardToFeatures(nextCard, features1);
+        return features1;
+    }
+
+    @Benchmark
+    public int[][] cardsToFeatures() {
+        return util.cardsToFeatures(set);
+    }
+
+    @Benchmark
+    public List<int[]> findSets(Search search) {
+        return util.findSets(search.deck, search.count);
+    }
+}
@@ -21,6 +21,16 @@ public class Config {
     public final long randomSpinMin;
     public final long randomSpinMax;
 
+    /**
+     * The path prefix of the binary game journal segment files (empty for no journal), followed by the time of the run
+     */
+    public final String journalFile;
+
+    /**
+     * The size in bytes of each journal segment file
+     */
+    public final int journalSegmentBytes;
+
     /**
      * The number of features on the cards (e.g. shape, color etc.)
      */
@@ -36,6 +46,16 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The number of cards from which searching for sets is split between the threads of the common fork-join pool
+     */
+    public final int parallelSearchThreshold;
+
+    /**
+     * The seed of the deck shuffles (0 for a different game every run)
+     */
+    public final long seed;
+
     /**
      * The number of human players in the game.
      */
@@ -46,6 +66,35 @@ public class Config {
      */
     public final int computerPlayers;
 
+    /**
+     * The strategy of the computer players: "random" (press random slots) or "sets" (claim the sets on the table)
+     */
+    public final String computerStrategy;
+
+    /**
+     * The probability that a computer player with the "sets" strategy goes for a set on the table (rather than a
+     * random slot) when it plans its next key presses
+     */
+    public final double computerSetProbability;
+
+    /**
+     * The rate at which the input of each computer player is generated (key presses per second, at most; 0 for no
+     * limit: as fast as the player handles them, e.g. for simulations)
+     */
+    public final double computerKeysPerSecond;
+
+    /**
+     * The mean and the standard deviation of the (normally distributed) number of milliseconds a computer player
+     * waits before each key press
+     */
+    public final long computerReactionMillis;
+    public final long computerReactionJitterMillis;
+
+    /**
+     * True iff the game threads (dealer, players and computer players) are virtual threads rather than platform threads
+     */
+    public final boolean virtualThreads;
+
     /**
      * The total number of players (human + computer) in the game
      */
@@ -155,7 +204,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -193,16 +242,37 @@ public class Config {
         if (randomSpinMax < randomSpinMin || randomSpinMin < 0)
             logger.severe("invalid random spin cycles: max: " + randomSpinMax + " min: " + randomSpinMin);
 
+        journalFile = properties.getProperty("JournalFile", "").trim();
+        journalSegmentBytes = Integer.parseInt(properties.getProperty("JournalSegmentKB", "1024")) * 1024;
+
         // cards settings
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        parallelSearchThreshold = Integer.parseInt(properties.getProperty("ParallelSearchThreshold", "1024"));
 
         // gameplay settings
+        seed = Long.parseLong(properties.getProperty("Seed", "0"));
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
         players = humanPlayers + computerPlayers;
 
+        String strategy = properties.getProperty("ComputerStrategy", "random").trim().toLowerCase();
+        if (!strategy.equals("random") && !strategy.equals("sets")) {
+            logger.severe("invalid computer strategy: " + strategy + " (should be random or sets), using random.");
+            strategy = "random";
+        }
+        computerStrategy = strategy;
+        computerKeysPerSecond = Math.max(0, Double.parseDouble(properties.getProperty("ComputerKeysPerSecond", "100")));
+        computerSetProbability = Double.parseDouble(properties.getProperty("ComputerSetProbability", "0.9"));
+        computerReactionMillis = (long) (Double.parseDouble(properties.getProperty("ComputerReactionSeconds", "0")) * 1000.0);
+        computerReactionJitterMillis = (long) (Double.parseDouble(properties.getProperty("ComputerReactionJitterSeconds", "0")) * 1000.0);
+
+        String threadMode = properties.getProperty("ThreadMode", "platform").trim();
+        virtualThreads = threadMode.equalsIgnoreCase("virtual");
+        if (!virtualThreads && !threadMode.equalsIgnoreCase("platform"))
+            logger.severe("invalid thread mode: " + threadMode + " (should be platform or virtual), using platform.");
+
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
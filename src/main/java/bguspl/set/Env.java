@@ -8,11 +8,21 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final GameThreadFactory threads;
+    public final TimingWheel timers;
+    public final Journal journal;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, Journal.open(logger, config, config.journalFile));
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Journal journal) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.threads = new GameThreadFactory(logger, config);
+        this.timers = TimingWheel.shared();
+        this.journal = journal;
     }
 }
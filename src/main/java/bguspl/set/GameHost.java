@@ -0,0 +1,191 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.GameStats;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * This class hosts many independent games in one process. Each game has its own environment (logger, user interface),
+ * table, dealer and players, and the dealers of all the games share a bounded executor.
+ */
+public class GameHost {
+
+    /**
+     * A game run by the host.
+     */
+    public static class Game {
+
+        public final int id;
+        public final Env env;
+        private final Dealer dealer;
+        private final Player[] players;
+        private volatile Future<?> future;
+
+        /**
+         * Set by whichever comes first: the dealer thread starting the game, or terminating it before it started (then
+         * the terminating thread releases the game's resources, as the game never will).
+         */
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private Game(int id, Env env, Dealer dealer, Player[] players) {
+            this.id = id;
+            this.env = env;
+            this.dealer = dealer;
+            this.players = players;
+        }
+
+        /**
+         * @return - true iff the game did not end yet (including games waiting for a free dealer thread).
+         */
+        public boolean isRunning() {
+            return !future.isDone();
+        }
+
+        /**
+         * @return - the performance counters of the game.
+         */
+        public GameStats stats() {
+            return dealer.stats();
+        }
+
+        /**
+         * @return - the current scores of the players.
+         */
+        public int[] scores() {
+            int[] scores = new int[players.length];
+            for (int i = 0; i < players.length; ++i)
+                scores[i] = players[i].score();
+            return scores;
+        }
+    }
+
+    private final Logger logger;
+    private final Config config;
+    private final Util util;
+
+    /**
+     * The executor that runs the dealers of all the games.
+     */
+    private final ExecutorService dealers;
+
+    private final Map<Integer, Game> games = new ConcurrentHashMap<>();
+    private final AtomicInteger nextGameId = new AtomicInteger();
+
+    /**
+     * @param logger     - the parent logger of the games' loggers.
+     * @param config     - the configuration of all the games.
+     * @param maxDealers - the maximum number of games played at once (more games wait for a free dealer thread).
+     */
+    public GameHost(Logger logger, Config config, int maxDealers) {
+        this.logger = logger;
+        this.config = config;
+        this.util = new UtilImpl(config);
+        GameThreadFactory threads = new GameThreadFactory(logger, config);
+        AtomicInteger dealerThreads = new AtomicInteger();
+        dealers = Executors.newFixedThreadPool(maxDealers,
+                target -> threads.newThread(target, "dealer-" + dealerThreads.incrementAndGet()));
+    }
+
+    /**
+     * Creates a new game with no user interface and starts it (once a dealer thread is free).
+     *
+     * @return - the game.
+     */
+    public Game createGame() {
+        return createGame(new NullUserInterface());
+    }
+
+    /**
+     * Creates a new game and starts it (once a dealer thread is free).
+     *
+     * @param ui - the user interface of the game.
+     * @return - the game.
+     */
+    public Game createGame(UserInterface ui) {
+        int id = nextGameId.incrementAndGet();
+        Logger gameLogger = Logger.getLogger(logger.getName() + ".game-" + id);
+        Journal journal = Journal.open(gameLogger, config, config.journalFile.isEmpty() ? "" : config.journalFile + "-game-" + id);
+        Env env = new Env(gameLogger, config, ui, util, journal);
+
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, i < config.humanPlayers);
+
+        Game game = new Game(id, env, dealer, players);
+        game.future = dealers.submit(() -> {
+            if (!game.started.compareAndSet(false, true)) return; // terminated before it started
+            ThreadLogger.logStart(gameLogger, Thread.currentThread().getName() + " (game " + id + ")");
+            try {
+                dealer.run();
+            } finally {
+                ThreadLogger.logStop(gameLogger, Thread.currentThread().getName() + " (game " + id + ")");
+                env.ui.dispose();
+                env.journal.close();
+            }
+        });
+        games.put(id, game);
+        logger.info("game " + id + " created.");
+        return game;
+    }
+
+    /**
+     * @return - all the games of the host (running and ended), in creation order.
+     */
+    public List<Game> listGames() {
+        List<Game> list = new ArrayList<>(games.values());
+        list.sort((first, second) -> Integer.compare(first.id, second.id));
+        return list;
+    }
+
+    /**
+     * @param id - the game id.
+     * @return - the game, or null if there is no game with this id.
+     */
+    public Game getGame(int id) {
+        return games.get(id);
+    }
+
+    /**
+     * Terminates a game and removes it from the host.
+     *
+     * @param id - the game id.
+     * @return - true iff there was a game with this id.
+     */
+    public boolean terminateGame(int id) {
+        Game game = games.remove(id);
+        if (game == null) return false;
+        game.future.cancel(false); // a game that did not start yet never will
+        if (game.started.compareAndSet(false, true)) {
+            game.env.ui.dispose();
+            game.env.journal.close();
+        }
+        game.dealer.terminate();
+        logger.info("game " + id + " terminated.");
+        return true;
+    }
+
+    /**
+     * Terminates all the games and waits for the dealer threads to end.
+     */
+    public void shutdown() throws InterruptedException {
+        for (Game game : listGames())
+            terminateGame(game.id);
+        dealers.shutdown();
+        dealers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,62 @@
+package bguspl.set;
+
+import java.lang.reflect.Method;
+import java.util.logging.Logger;
+
+/**
+ * This class creates all the threads of a game (dealer, players and computer players), as either platform threads or
+ * virtual threads according to config.virtualThreads.
+ * Virtual threads are created by reflection, since they are only available from Java 21 (this project targets Java 8);
+ * on older runtimes the factory falls back to platform threads.
+ */
+public class GameThreadFactory {
+
+    /**
+     * Thread.ofVirtual(), Thread.Builder.name(String) and Thread.Builder.unstarted(Runnable) (null for platform threads).
+     */
+    private final Method ofVirtual;
+    private final Method name;
+    private final Method unstarted;
+
+    public GameThreadFactory(Logger logger, Config config) {
+        Method ofVirtual = null, name = null, unstarted = null;
+        if (config.virtualThreads) {
+            try {
+                Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                name = builder.getMethod("name", String.class);
+                unstarted = builder.getMethod("unstarted", Runnable.class);
+            } catch (ReflectiveOperationException e) {
+                logger.severe("virtual threads are not supported by this java runtime, using platform threads.");
+                ofVirtual = null;
+            }
+        }
+        this.ofVirtual = ofVirtual;
+        this.name = name;
+        this.unstarted = unstarted;
+    }
+
+    /**
+     * @return - true iff this factory creates virtual threads.
+     */
+    public boolean isVirtual() {
+        return ofVirtual != null;
+    }
+
+    /**
+     * Creates a new (unstarted) thread.
+     *
+     * @param target - the code the thread runs.
+     * @param name   - the thread name.
+     * @return - the thread.
+     */
+    public Thread newThread(Runnable target, String name) {
+        if (ofVirtual == null) return new Thread(target, name);
+        try {
+            Object builder = this.name.invoke(ofVirtual.invoke(null), name);
+            return (Thread) unstarted.invoke(builder, target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot create virtual thread " + name, e);
+        }
+    }
+}
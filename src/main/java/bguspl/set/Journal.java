@@ -0,0 +1,246 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.logging.Logger;
+
+/**
+ * This class is an append-only binary journal of the events of a game (cards, tokens, claims, verdicts, freezes and
+ * scores), for a full history of the game at a fraction of the cost of the text log.
+ * Every event is a fixed-width record of RECORD_BYTES:
+ * time (long, nanoseconds since the journal was opened), type (short), player (short), slot (int), card (int) and
+ * value (int), with -1 for the fields an event does not have.
+ * Records are written to memory-mapped segment files of a fixed size (prefix.0000, prefix.0001, ...): a new segment
+ * is started when the current one is full, and the rest of the last segment is zeros (type 0 ends a segment).
+ * Writing a record does not allocate (only starting a new segment does).
+ * A journal never overwrites the segments of an existing one (e.g. a recording to replay): open gives every run its
+ * own prefix, with the time it started (as the log file).
+ */
+public class Journal {
+
+    public static final int RECORD_BYTES = 24;
+
+    /**
+     * The event types.
+     */
+    public static final int CARD_PLACED = 1;
+    public static final int CARD_REMOVED = 2;
+    public static final int TOKEN_PLACED = 3;
+    public static final int TOKEN_REMOVED = 4;
+    /** One record per card of the claimed set. */
+    public static final int CLAIM = 5;
+    /** The value is 1 for a legal set, 0 for an illegal one and -1 for a stale claim. */
+    public static final int VERDICT = 6;
+    /** The value is the freeze time in milliseconds. */
+    public static final int FREEZE = 7;
+    /** The value is the new score. */
+    public static final int SCORE = 8;
+    /** The seed of the game (the card field is the high half, the value the low half). */
+    public static final int SEED = 9;
+    /** A key press handled by a player (human or computer), journaled right before the token change it leads to. */
+    public static final int KEY_PRESSED = 10;
+
+    /**
+     * A journal that records nothing (when no journal file is configured).
+     */
+    public static final Journal NONE = new Journal();
+
+    /**
+     * Reads the records of a journal.
+     */
+    public interface Visitor {
+        void record(long nanos, int type, int player, int slot, int card, int value);
+    }
+
+    private final Logger logger;
+    private final String prefix;
+    private final int segmentBytes;
+    private final long startNanos = System.nanoTime();
+    private MappedByteBuffer segment;
+    private int segmentIndex = -1;
+    private volatile long records;
+
+    private Journal() {
+        logger = null;
+        prefix = null;
+        segmentBytes = 0;
+    }
+
+    /**
+     * @param logger       - the logger for errors (writing is disabled after an error).
+     * @param prefix       - the path prefix of the segment files (writing is disabled if a journal with this prefix
+     *                     already exists).
+     * @param segmentBytes - the size of each segment file (rounded down to whole records).
+     */
+    public Journal(Logger logger, String prefix, int segmentBytes) {
+        if (segmentBytes < RECORD_BYTES) throw new IllegalArgumentException("segment too small: " + segmentBytes);
+        this.logger = logger;
+        this.prefix = prefix;
+        this.segmentBytes = segmentBytes / RECORD_BYTES * RECORD_BYTES;
+        if (Files.exists(segmentPath(prefix, 0))) {
+            logger.severe("journal " + prefix + " already exists, journal disabled.");
+            return;
+        }
+        nextSegment();
+    }
+
+    /**
+     * @param logger - the logger for errors.
+     * @param config - the configuration (config.journalFile and config.journalSegmentBytes).
+     * @param prefix - the path prefix of the segment files (e.g. config.journalFile).
+     * @return - a journal writing to uniquePrefix(prefix), or NONE if the prefix is empty.
+     */
+    public static Journal open(Logger logger, Config config, String prefix) {
+        if (prefix == null || prefix.isEmpty()) return NONE;
+        String unique = uniquePrefix(prefix);
+        logger.info("journal " + unique);
+        return new Journal(logger, unique, config.journalSegmentBytes);
+    }
+
+    /**
+     * @return - the prefix followed by the current time, and by a counter if a journal with that prefix already
+     *           exists (e.g. journal-3-14_15-09-26, journal-3-14_15-09-26-2).
+     */
+    public static String uniquePrefix(String prefix) {
+        String timed = prefix + "-" + new SimpleDateFormat("M-d_HH-mm-ss").format(new Date());
+        String unique = timed;
+        for (int counter = 2; Files.exists(segmentPath(unique, 0)); ++counter)
+            unique = timed + "-" + counter;
+        return unique;
+    }
+
+    private static Path segmentPath(String prefix, int index) {
+        return Paths.get(prefix + "." + String.format("%04d", index));
+    }
+
+    private void nextSegment() {
+        if (segment != null) segment.force();
+        Path path = segmentPath(prefix, ++segmentIndex);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes); // stays valid after closing
+        } catch (IOException e) {
+            logger.severe("cannot write journal segment " + path + ": " + e + ", journal disabled.");
+            segment = null;
+        }
+    }
+
+    /**
+     * Appends a record.
+     */
+    public void write(int type, int player, int slot, int card, int value) {
+        if (prefix != null) append(type, player, slot, card, value); // NONE is shared, so it must not lock
+    }
+
+    private synchronized void append(int type, int player, int slot, int card, int value) {
+        if (segment == null) return;
+        if (segment.remaining() < RECORD_BYTES) {
+            nextSegment();
+            if (segment == null) return;
+        }
+        segment.putLong(System.nanoTime() - startNanos).putShort((short) type).putShort((short) player)
+                .putInt(slot).putInt(card).putInt(value);
+        ++records;
+    }
+
+    /**
+     * @return - the number of records written so far.
+     */
+    public long records() {
+        return records;
+    }
+
+    public void cardPlaced(int card, int slot) {
+        write(CARD_PLACED, -1, slot, card, -1);
+    }
+
+    public void cardRemoved(int card, int slot) {
+        write(CARD_REMOVED, -1, slot, card, -1);
+    }
+
+    public void tokenPlaced(int player, int slot) {
+        write(TOKEN_PLACED, player, slot, -1, -1);
+    }
+
+    public void tokenRemoved(int player, int slot) {
+        write(TOKEN_REMOVED, player, slot, -1, -1);
+    }
+
+    public void claim(int player, int[] slots, int[] cards) {
+        for (int i = 0; i < slots.length; ++i)
+            write(CLAIM, player, slots[i], cards[i], -1);
+    }
+
+    public void verdict(int player, int verdict) {
+        write(VERDICT, player, -1, -1, verdict);
+    }
+
+    public void freeze(int player, long millis) {
+        write(FREEZE, player, -1, -1, (int) millis);
+    }
+
+    public void score(int player, int score) {
+        write(SCORE, player, -1, -1, score);
+    }
+
+    public void seed(long seed) {
+        write(SEED, -1, -1, (int) (seed >>> 32), (int) seed);
+    }
+
+    public void keyPressed(int player, int slot) {
+        write(KEY_PRESSED, player, slot, -1, -1);
+    }
+
+    /**
+     * Journals a key press along with the token change it leads to, with no other event of the game in between (so a
+     * replay feeds the key press at the same point of the game). Locks only this journal, and NONE not at all.
+     *
+     * @param change - the token change (journaled by the table).
+     */
+    public void keyPressed(int player, int slot, Runnable change) {
+        if (prefix == null) {
+            change.run();
+            return;
+        }
+        synchronized (this) {
+            keyPressed(player, slot);
+            change.run();
+        }
+    }
+
+    /**
+     * Flushes the written records to the segment file.
+     */
+    public synchronized void close() {
+        if (segment != null) segment.force();
+        segment = null;
+    }
+
+    /**
+     * Reads all the records of a journal, in order.
+     *
+     * @param prefix  - the path prefix of the segment files.
+     * @param visitor - called for every record.
+     */
+    public static void read(String prefix, Visitor visitor) throws IOException {
+        for (int index = 0; Files.exists(segmentPath(prefix, index)); ++index) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segmentPath(prefix, index)));
+            while (buffer.remaining() >= RECORD_BYTES) {
+                long nanos = buffer.getLong();
+                int type = buffer.getShort();
+                int player = buffer.getShort();
+                int slot = buffer.getInt(), card = buffer.getInt(), value = buffer.getInt();
+                if (type == 0) break;
+                visitor.record(nanos, type, player, slot, card, value);
+            }
+        }
+    }
+}
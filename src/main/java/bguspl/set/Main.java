@@ -66,7 +66,7 @@ public class Main {
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
 
         // start the dealer thread
-        ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
+        ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger, env.threads);
         dealerThread.startWithLog();
 
         try {
@@ -79,6 +79,7 @@ public class Main {
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             if (!xButtonPressed) env.ui.dispose();
+            env.journal.close();
             for (Handler h : logger.getHandlers()) h.flush();
         }
     }
@@ -0,0 +1,225 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * This class replays a game recorded in a journal (see JournalFile in config.properties): the dealer is seeded with
+ * the recorded seed, and the recorded key presses of all the players (human and computer) are fed to
+ * Player.keyPressed, either at their original times or as fast as possible. The replay runs in lockstep with the
+ * recording: a key press is fed only once the replay reached the point of the game it was made at (the replay has all
+ * the events the recording had before it) and the player accepts key presses, and every event of the replay is
+ * compared with the recording as it is journaled. The replay stops at the first event that differs.
+ * The game must be replayed with the configuration it was recorded with (the same config.properties).
+ * Games of a single player replay exactly (the dealer and the player take turns). Timing may change the outcome of
+ * other games: e.g. a reshuffle on turn timeout happens at the same time in an original speed replay, but not in a
+ * fast one, so fast replays are meant for games without a turn timeout (TurnTimeoutSeconds <= 0), and the events of
+ * players that act at the same time may be journaled in a different order (the order of their threads).
+ * Run with: mvn compile exec:java -Dexec.mainClass=bguspl.set.Replay -Dexec.args="journal=./logs/journal-3-14_15-09-26 speed=fast"
+ */
+public class Replay {
+
+    /**
+     * Runs the replay.
+     *
+     * @param args - "journal=prefix" (the recorded journal), optional "speed=original" (default) or "speed=fast",
+     *             and optional "output=prefix" (the journal of the replay, default: the recorded prefix + "-replay" and the
+     *             time).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String journal = null, output = null;
+        boolean fast = false;
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue[0].equals("journal")) journal = keyValue[1];
+            else if (keyValue[0].equals("output")) output = keyValue[1];
+            else if (keyValue[0].equals("speed")) fast = keyValue[1].equals("fast");
+            else throw new IllegalArgumentException("unknown argument: " + arg);
+        }
+        if (journal == null) throw new IllegalArgumentException("missing argument: journal=prefix");
+        if (output == null) output = Journal.uniquePrefix(journal + "-replay");
+
+        Logger logger = Logger.getLogger("SetGameReplay");
+        logger.setUseParentHandlers(false);
+        Properties properties = Config.loadProperties("config.properties", logger);
+        properties.setProperty("LogLevel", "OFF");
+        Config config = new Config(logger, properties);
+
+        List<long[]> recorded = events(journal);
+        List<long[]> replayed = replay(logger, config, recorded, fast, output);
+
+        System.out.println("replay journal: " + output);
+        System.out.println("recorded scores: " + Arrays.toString(scores(recorded, config.players)));
+        System.out.println("replayed scores: " + Arrays.toString(scores(replayed, config.players)));
+        int difference = firstDifference(recorded, replayed);
+        if (difference == -1) System.out.println("identical event sequences (" + recorded.size() + " events).");
+        else System.out.println("the replay diverged at event " + difference + ": recorded "
+                + describe(recorded, difference) + ", replayed " + describe(replayed, difference));
+    }
+
+    /**
+     * Replays a game, and journals the replay.
+     *
+     * @param logger   - the logger of the replay.
+     * @param config   - the configuration the game was recorded with.
+     * @param recorded - the events of the recorded game (see events).
+     * @param fast     - true to replay as fast as possible, false to replay at the original times.
+     * @param output   - the path prefix of the replay journal.
+     * @return - the events of the replay, up to the first one that differs from the recording.
+     */
+    static List<long[]> replay(Logger logger, Config config, List<long[]> recorded, boolean fast, String output)
+            throws InterruptedException {
+        long[] seed = null;
+        for (long[] event : recorded)
+            if (event[1] == Journal.SEED) seed = event;
+        if (seed == null) throw new IllegalArgumentException("the journal has no seed record");
+
+        LockstepJournal journal = new LockstepJournal(logger, output, config.journalSegmentBytes, recorded);
+        Env env = new Env(logger, config, new NullUserInterface(), new UtilImpl(config), journal);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players, (seed[4] << 32) | (seed[5] & 0xffffffffL));
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, i < config.humanPlayers, false);
+
+        // how long the replay may make no progress before it is considered stuck (e.g. it is missing an event)
+        long grace = config.penaltyFreezeMillis + config.pointFreezeMillis + 1000;
+        long recordedStart = recorded.get(0)[0];
+
+        Thread dealerThread = env.threads.newThread(dealer, "dealer");
+        long start = System.nanoTime();
+        dealerThread.start();
+        boolean inStep = true;
+        for (int index = 0; inStep && index < recorded.size(); ++index) {
+            long[] event = recorded.get(index);
+            if (event[1] != Journal.KEY_PRESSED) continue;
+            Player player = players[(int) event[2]];
+            if (!fast) {
+                long sleep = (event[0] - recordedStart - (System.nanoTime() - start)) / 1000000;
+                if (sleep > 0) Thread.sleep(sleep);
+            }
+            inStep = journal.await(index, player, dealerThread, grace) && player.keyPressed((int) event[3]);
+        }
+
+        // let the game reach its recorded end, then end it if it did not end by itself (or the replay diverged)
+        if (inStep && !fast) {
+            long sleep = (recorded.get(recorded.size() - 1)[0] - recordedStart - (System.nanoTime() - start)) / 1000000;
+            if (sleep > 0) Thread.sleep(sleep);
+        }
+        if (inStep) inStep = journal.await(recorded.size(), null, dealerThread, grace);
+        if (!inStep) dealer.terminate();
+        dealerThread.join(grace);
+        if (dealerThread.isAlive()) {
+            dealer.terminate();
+            dealerThread.join();
+        }
+        journal.close();
+        return journal.events();
+    }
+
+    /**
+     * The journal of a replay: also keeps the events in memory and compares them with the recording as they are
+     * written, so the replay can follow the recording and stop as soon as it differs.
+     */
+    private static class LockstepJournal extends Journal {
+
+        private final List<long[]> recorded;
+        private final List<long[]> events = new ArrayList<>();
+        private boolean inStep = true;
+
+        private LockstepJournal(Logger logger, String prefix, int segmentBytes, List<long[]> recorded) {
+            super(logger, prefix, segmentBytes);
+            this.recorded = recorded;
+        }
+
+        @Override
+        public synchronized void write(int type, int player, int slot, int card, int value) {
+            // the events after the first difference, or after the end of the recording, are not compared nor kept
+            if (!inStep || events.size() == recorded.size()) return;
+            super.write(type, player, slot, card, value);
+            long[] event = {System.nanoTime(), type, player, slot, card, value};
+            events.add(event);
+            int index = events.size() - 1;
+            inStep = sameEvent(recorded.get(index), event);
+            notifyAll();
+        }
+
+        /**
+         * Waits until the replay has all the events the recording had before an index, and a player (if any) accepts
+         * key presses.
+         *
+         * @return - true iff the replay is in step with the recording at the index (false if it differs, the game
+         *         ended or the replay made no progress for graceMillis).
+         */
+        private synchronized boolean await(int index, Player player, Thread dealerThread, long graceMillis)
+                throws InterruptedException {
+            int progress = events.size();
+            long deadline = System.currentTimeMillis() + graceMillis;
+            while (inStep && (events.size() < index || player != null && !player.acceptsInput())) {
+                if (events.size() != progress) {
+                    progress = events.size();
+                    deadline = System.currentTimeMillis() + graceMillis;
+                }
+                if (!dealerThread.isAlive() || System.currentTimeMillis() >= deadline) return false;
+                wait(1); // the player's state is not notified
+            }
+            return inStep && events.size() == index;
+        }
+
+        private synchronized List<long[]> events() {
+            return new ArrayList<>(events);
+        }
+    }
+
+    /**
+     * @param prefix - the journal prefix.
+     * @return - the records of the journal, as {nanos, type, player, slot, card, value}.
+     */
+    static List<long[]> events(String prefix) throws IOException {
+        List<long[]> events = new ArrayList<>();
+        Journal.read(prefix, (nanos, type, player, slot, card, value) ->
+                events.add(new long[]{nanos, type, player, slot, card, value}));
+        return events;
+    }
+
+    /**
+     * @return - the last score of every player.
+     */
+    static int[] scores(List<long[]> events, int players) {
+        int[] scores = new int[players];
+        for (long[] event : events)
+            if (event[1] == Journal.SCORE) scores[(int) event[2]] = (int) event[5];
+        return scores;
+    }
+
+    /**
+     * @return - the index of the first event that differs (ignoring times), or -1 if the sequences are identical.
+     */
+    static int firstDifference(List<long[]> first, List<long[]> second) {
+        for (int i = 0; i < Math.min(first.size(), second.size()); ++i)
+            if (!sameEvent(first.get(i), second.get(i)))
+                return i;
+        return first.size() == second.size() ? -1 : Math.min(first.size(), second.size());
+    }
+
+    /**
+     * @return - true iff two events are the same (ignoring times).
+     */
+    private static boolean sameEvent(long[] first, long[] second) {
+        for (int field = 1; field < first.length; ++field)
+            if (first[field] != second[field]) return false;
+        return true;
+    }
+
+    private static String describe(List<long[]> events, int index) {
+        return index < events.size() ? Arrays.toString(Arrays.copyOfRange(events.get(index), 1, 6)) : "(none)";
+    }
+}
@@ -0,0 +1,62 @@
+package bguspl.set;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * A list of sets backed by a single flat primitive array (setSize card ids per set).
+ */
+class SetBuffer extends AbstractList<int[]> {
+
+    private final int setSize;
+    private int[] data;
+    private int size;
+
+    public SetBuffer(int setSize) {
+        this.setSize = setSize;
+        this.data = new int[setSize * 16];
+    }
+
+    /**
+     * Appends a copy of a set to the end of the buffer.
+     *
+     * @param set - the card ids of the set (only the first setSize entries are copied).
+     */
+    public void append(int[] set) {
+        ensureCapacity(size + 1);
+        System.arraycopy(set, 0, data, size * setSize, setSize);
+        ++size;
+    }
+
+    /**
+     * Appends all the sets of another buffer to the end of this one.
+     */
+    public void appendAll(SetBuffer other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.data, 0, data, size * setSize, other.size * setSize);
+        size += other.size;
+    }
+
+    /**
+     * Drops all but the first count sets.
+     */
+    public void truncate(int count) {
+        if (count < size) size = Math.max(count, 0);
+    }
+
+    private void ensureCapacity(int sets) {
+        if (sets * setSize > data.length)
+            data = Arrays.copyOf(data, Math.max(sets * setSize, 2 * data.length));
+    }
+
+    @Override
+    public int[] get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index: " + index + " size: " + size);
+        return Arrays.copyOfRange(data, index * setSize, (index + 1) * setSize);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,20 @@
+package bguspl.set;
+
+/**
+ * A lazy cursor over the legal sets in a collection of cards (see Util.setCursor method).
+ */
+public interface SetCursor {
+
+    /**
+     * @return - the number of cards in each set (i.e. config.featureSize).
+     */
+    int setSize();
+
+    /**
+     * Advances to the next legal set and copies its card ids (in ascending order) into the caller's buffer.
+     *
+     * @param set - an array of setSize() entries to copy the card ids into (may be reused between calls).
+     * @return - true iff another set was found, false once all the sets were enumerated.
+     */
+    boolean next(int[] set);
+}
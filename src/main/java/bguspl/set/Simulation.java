@@ -0,0 +1,85 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.GameStats;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * This class runs complete games back to back, headless and as fast as possible: computer players only, no user
+ * interface, no log file, no journal, no table, freeze or end of game delays, no computer key press rate limit and no
+ * turn timeout (the dealer deals a set whenever the table has none, instead of waiting for the timeout to reshuffle).
+ * The rest of the configuration (cards, table size etc.) is read from config.properties, as in Main.
+ * Run with: mvn compile exec:java -Dexec.mainClass=bguspl.set.Simulation -Dexec.args="games=10 players=4"
+ */
+public class Simulation {
+
+    /**
+     * Runs the simulation.
+     *
+     * @param args - optional "games=N" (default 10) and "players=N" (default: the total number of configured players).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Logger logger = Logger.getLogger("SetGameSimulation");
+        logger.setUseParentHandlers(false);
+        Properties properties = Config.loadProperties("config.properties", logger);
+
+        int games = 10;
+        int players = new Config(logger, properties).players;
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue[0].equals("games")) games = Integer.parseInt(keyValue[1]);
+            else if (keyValue[0].equals("players")) players = Integer.parseInt(keyValue[1]);
+            else throw new IllegalArgumentException("unknown argument: " + arg);
+        }
+
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", Integer.toString(players));
+        properties.setProperty("Hints", "False");
+        properties.setProperty("TableDelaySeconds", "0");
+        properties.setProperty("PointFreezeSeconds", "0");
+        properties.setProperty("PenaltyFreezeSeconds", "0");
+        properties.setProperty("EndGamePauseSeconds", "0");
+        properties.setProperty("TurnTimeoutSeconds", "-1");
+        properties.setProperty("ComputerKeysPerSecond", "0");
+        properties.setProperty("JournalFile", "");
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new NullUserInterface(), new UtilImpl(config)); // shared by the games
+
+        long sets = 0, reshuffles = 0, penalties = 0;
+        long start = System.nanoTime();
+        for (int game = 0; game < games; ++game) {
+            GameStats stats = runGame(env);
+            sets += stats.setsCollected();
+            reshuffles += stats.reshuffles();
+            penalties += stats.penalties();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("games: %d, players: %d, seconds: %.2f, games/sec: %.3f%n", games, players, elapsed, games / elapsed);
+        System.out.printf("per game: sets: %.2f, reshuffles: %.2f, penalties: %.2f%n",
+                (double) sets / games, (double) reshuffles / games, (double) penalties / games);
+    }
+
+    /**
+     * Runs a single game until it ends.
+     *
+     * @return - the performance counters of the game.
+     */
+    private static GameStats runGame(Env env) throws InterruptedException {
+        Table table = new Table(env);
+        Player[] players = new Player[env.config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        Thread dealerThread = env.threads.newThread(dealer, "dealer");
+        dealerThread.start();
+        dealerThread.join();
+        return dealer.stats();
+    }
+}
@@ -2,23 +2,35 @@ package bguspl.set;
 
 import java.util.logging.Logger;
 
-public class ThreadLogger extends Thread {
+public class ThreadLogger {
 
     final Logger logger;
+    private final Thread thread;
 
     public ThreadLogger(Runnable target, String name, Logger logger) {
-        super(target, name);
+        this(target, name, logger, null);
+    }
+
+    /**
+     * @param threads - the factory to create the thread with (null for a platform thread).
+     */
+    public ThreadLogger(Runnable target, String name, Logger logger, GameThreadFactory threads) {
         this.logger = logger;
+        this.thread = threads == null ? new Thread(target, name) : threads.newThread(target, name);
+    }
+
+    public String getName() {
+        return thread.getName();
     }
 
     public void startWithLog() {
         logStart(logger, getName());
-        super.start();
+        thread.start();
     }
 
     public void joinWithLog() throws InterruptedException {
         try {
-            join();
+            thread.join();
         } finally {
             logStop(logger, getName());
         }
@@ -0,0 +1,298 @@
+package bguspl.set;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is a hashed timing wheel: a single daemon thread that runs the timers of all the games (reshuffle
+ * countdowns, elapsed time displays and player freezes), instead of a sleeping thread per timer.
+ * Time is divided into ticks of tickMillis, and every timer is hashed into the bucket of the tick it expires on
+ * (along with the number of full rounds of the wheel left), so scheduling and cancelling are O(1) and each tick only
+ * visits the timers of its own bucket. Timers never fire early, and fire at most one tick late.
+ * The callbacks run on the wheel thread, so they must be short (e.g. a user interface update or a wake up).
+ */
+public class TimingWheel {
+
+    /**
+     * A scheduled timer.
+     */
+    public interface Timeout {
+
+        /**
+         * Cancels the timer (a callback that already started running is not interrupted).
+         */
+        void cancel();
+    }
+
+    /**
+     * The display of a countdown (e.g. UserInterface.setCountdown).
+     */
+    public interface Display {
+
+        /**
+         * @param millis - the remaining time to show (a whole number of seconds, or of ticks during the warning).
+         * @param warn   - true iff the countdown is in its warning period.
+         */
+        void show(long millis, boolean warn);
+    }
+
+    private static final long SECOND_MILLIS = 1000;
+
+    /**
+     * The wheel shared by all the games in the process.
+     */
+    private static class Shared {
+        private static final TimingWheel INSTANCE = new TimingWheel("timing-wheel", 10, 512);
+    }
+
+    /**
+     * @return - the timing wheel shared by all the games in the process (10ms ticks).
+     */
+    public static TimingWheel shared() {
+        return Shared.INSTANCE;
+    }
+
+    private static class Node implements Timeout {
+
+        private final Runnable task;
+        private final long period;
+        private long deadline;
+        private long rounds;
+        private Node next;
+        private volatile boolean cancelled;
+
+        private Node(Runnable task, long deadline, long period) {
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * A countdown that shows its remaining time only when the shown value changes: every second, and every tick
+     * during the warning period. It shows 0 and runs its expiry callback at the deadline.
+     */
+    private class Countdown implements Timeout, Runnable {
+
+        private final long deadline;
+        private final long warningMillis;
+        private final Display display;
+        private final Runnable expired;
+        private long shownMillis = -1;
+        private boolean shownWarn;
+        private volatile Timeout step;
+        private volatile boolean cancelled;
+
+        private Countdown(long deadline, long warningMillis, Display display, Runnable expired) {
+            this.deadline = deadline;
+            this.warningMillis = warningMillis;
+            this.display = display;
+            this.expired = expired;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) return;
+            long now = System.currentTimeMillis();
+            long remaining = Math.max(0, deadline - now);
+            boolean warn = remaining < warningMillis;
+            long quantum = warn ? tickMillis : SECOND_MILLIS;
+            long millis = (remaining + quantum - 1) / quantum * quantum; // rounded up, so 0 is shown at the deadline
+            if (millis != shownMillis || warn != shownWarn) {
+                shownMillis = millis;
+                shownWarn = warn;
+                display.show(millis, warn);
+            }
+
+            if (remaining == 0) {
+                if (expired != null) expired.run();
+                return;
+            }
+            long next = deadline - (millis - quantum); // when the shown value changes
+            if (!warn) next = Math.min(next, deadline - warningMillis + 1); // or the warning starts
+            step = schedule(this, next - now);
+            if (cancelled) step.cancel();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Timeout step = this.step;
+            if (step != null) step.cancel();
+        }
+    }
+
+    private final String name;
+
+    /**
+     * The logger for the exceptions of the callbacks (named after the wheel thread, as the wheel is shared by games).
+     */
+    private final Logger logger;
+
+    private final long tickMillis;
+    private final Node[] buckets;
+    private final long start = System.currentTimeMillis();
+
+    /**
+     * Timers scheduled since the last tick (buckets are only accessed by the wheel thread).
+     */
+    private final ConcurrentLinkedQueue<Node> pending = new ConcurrentLinkedQueue<>();
+    private final Object lock = new Object();
+    private Thread thread;
+
+    /**
+     * The last tick processed, and the number of timers in the buckets (accessed by the wheel thread only).
+     */
+    private long tick;
+    private int scheduled;
+
+    /**
+     * @param name       - the name of the wheel thread (and of its logger).
+     * @param tickMillis - the duration of a tick (the resolution of the timers).
+     * @param size       - the number of buckets (a power of 2).
+     */
+    public TimingWheel(String name, long tickMillis, int size) {
+        if (Integer.bitCount(size) != 1) throw new IllegalArgumentException("size must be a power of 2: " + size);
+        this.name = name;
+        this.logger = Logger.getLogger(name);
+        this.tickMillis = tickMillis;
+        this.buckets = new Node[size];
+    }
+
+    /**
+     * @return - the duration of a tick in milliseconds.
+     */
+    public long tickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Runs a task once, after a delay.
+     *
+     * @param task        - the task.
+     * @param delayMillis - the delay in milliseconds.
+     * @return - the timer (for cancelling).
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        return add(new Node(task, System.currentTimeMillis() + delayMillis, 0));
+    }
+
+    /**
+     * Runs a task periodically (at fixed rate), until it is cancelled.
+     *
+     * @param task         - the task.
+     * @param delayMillis  - the delay in milliseconds before the first run.
+     * @param periodMillis - the period in milliseconds.
+     * @return - the timer (for cancelling).
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long delayMillis, long periodMillis) {
+        if (periodMillis <= 0) throw new IllegalArgumentException("period must be positive: " + periodMillis);
+        return add(new Node(task, System.currentTimeMillis() + delayMillis, periodMillis));
+    }
+
+    /**
+     * Starts a countdown. The current remaining time is shown right away (on the calling thread), and then on the
+     * wheel thread whenever the shown value changes.
+     *
+     * @param deadlineMillis - the time the countdown ends (as in System.currentTimeMillis()).
+     * @param warningMillis  - the length of the warning period before the deadline (0 for none).
+     * @param display        - shows the remaining time.
+     * @param expired        - runs at the deadline, after 0 is shown (or null).
+     * @return - the timer (for cancelling).
+     */
+    public Timeout countdown(long deadlineMillis, long warningMillis, Display display, Runnable expired) {
+        Countdown countdown = new Countdown(deadlineMillis, warningMillis, display, expired);
+        countdown.run();
+        return countdown;
+    }
+
+    private Node add(Node node) {
+        pending.add(node);
+        synchronized (lock) {
+            if (thread == null) {
+                thread = new Thread(this::run, name);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            lock.notify();
+        }
+        return node;
+    }
+
+    private void run() {
+        tick = currentTick();
+        while (true) {
+            synchronized (lock) {
+                while (scheduled == 0 && pending.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ignored) {}
+                    tick = currentTick(); // nothing was scheduled, so the ticks in between can be skipped
+                }
+            }
+            long sleep = start + (tick + 1) * tickMillis - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException ignored) {}
+                continue;
+            }
+
+            for (Node node = pending.poll(); node != null; node = pending.poll())
+                place(node);
+            ++tick;
+            expire((int) (tick & (buckets.length - 1)));
+        }
+    }
+
+    private long currentTick() {
+        return (System.currentTimeMillis() - start) / tickMillis;
+    }
+
+    /**
+     * Adds a timer to the bucket of the first tick that starts at or after its deadline.
+     */
+    private void place(Node node) {
+        if (node.cancelled) return;
+        long target = Math.max(tick + 1, (node.deadline - start + tickMillis - 1) / tickMillis);
+        int bucket = (int) (target & (buckets.length - 1));
+        node.rounds = (target - tick - 1) / buckets.length;
+        node.next = buckets[bucket];
+        buckets[bucket] = node;
+        ++scheduled;
+    }
+
+    private void expire(int bucket) {
+        Node node = buckets[bucket];
+        buckets[bucket] = null;
+        while (node != null) {
+            Node next = node.next;
+            if (node.cancelled) {
+                --scheduled;
+            } else if (node.rounds > 0) {
+                --node.rounds;
+                node.next = buckets[bucket];
+                buckets[bucket] = node;
+            } else {
+                --scheduled;
+                try {
+                    node.task.run();
+                } catch (RuntimeException e) {
+                    // the other timers still run
+                    logger.log(Level.SEVERE, "timer callback failed", e);
+                }
+                if (node.period > 0) {
+                    node.deadline += node.period;
+                    place(node);
+                }
+            }
+            node = next;
+        }
+    }
+}
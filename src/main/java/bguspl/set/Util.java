@@ -1,6 +1,11 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -15,6 +20,23 @@ public interface Util {
      */
     int[] cardToFeatures(int card);
 
+    /**
+     * Copies the features of a card into a caller's buffer (see cardToFeatures method), without allocating.
+     *
+     * @param card     - the card id.
+     * @param features - an array of (at least) config.featureCount entries to copy the features into.
+     */
+    void cardToFeatures(int card, int[] features);
+
+    /**
+     * Returns a single feature of a card (see cardToFeatures method), without allocating.
+     *
+     * @param card    - the card id.
+     * @param feature - the index of the feature (between 0 and config.featureCount - 1).
+     * @return - the value of the feature (between 0 and config.featureSize - 1).
+     */
+    int feature(int card, int feature);
+
     /**
      * Converts an array of card ids to an array of features (see cardToFeatures method).
      *
@@ -40,6 +62,45 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Creates a lazy cursor over the legal sets in the given collection of cards. Sets are only searched for as the
+     * cursor advances, so callers can stop early without materializing all the sets.
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - a cursor over the legal sets in deck.
+     */
+    SetCursor setCursor(List<Integer> deck);
+
+    /**
+     * Creates a lazy stream of the legal sets in the given collection of cards (see setCursor method).
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - a stream of integer arrays, each one contains the card ids of a legal set.
+     */
+    default Stream<int[]> streamSets(List<Integer> deck) {
+        SetCursor cursor = setCursor(deck);
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<int[]>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super int[]> action) {
+                int[] set = new int[cursor.setSize()];
+                if (!cursor.next(set)) return false;
+                action.accept(set);
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * Finds the card that completes a legal set together with the two given cards (only for config.featureSize == 3,
+     * where the third card of a set is fully determined by the first two).
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id (must be different from first).
+     * @return - the id of the completing card, or -1 if the set size is not 3.
+     */
+    int completeSet(int first, int second);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
@@ -3,8 +3,10 @@ package bguspl.set;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The implementation of the UserInterface interface.
@@ -13,17 +15,64 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The features of all the cards, computed once: the features of card c are at [c * featureCount, (c + 1) * featureCount).
+     */
+    private final int[] features;
+
+    /**
+     * The weight of each feature in a card id (i.e. featureSize ^ (featureCount - 1 - feature)).
+     */
+    private final int[] featureWeights;
+
+    /**
+     * The features of each card packed into a single word, 2 bits per feature (null unless featureSize == 3 and the
+     * features fit in a long).
+     */
+    private final long[] packedFeatures;
+
+    /**
+     * The lowest bit of every 2-bit feature field in a packed word.
+     */
+    private final long packedMask;
+
     public UtilImpl(Config config) {
         this.config = config;
-    }
 
-    private void cardToFeatures(int card, int[] features) {
-        for (int i = config.featureCount - 1; i >= 0; --i) {
-            features[i] = card % config.featureSize;
-            card /= config.featureSize;
+        featureWeights = new int[config.featureCount];
+        for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= config.featureSize)
+            featureWeights[i] = weight;
+
+        features = new int[config.deckSize * config.featureCount];
+        for (int card = 0, offset = 0; card < config.deckSize; ++card)
+            for (int i = 0; i < config.featureCount; ++i, ++offset)
+                features[offset] = card / featureWeights[i] % config.featureSize;
+
+        if (config.featureSize == 3 && config.featureCount <= Long.SIZE / 2) {
+            long mask = 0;
+            for (int i = 0; i < config.featureCount; ++i)
+                mask |= 1L << (2 * i);
+            packedMask = mask;
+            packedFeatures = new long[config.deckSize];
+            for (int card = 0; card < config.deckSize; ++card)
+                for (int i = 0; i < config.featureCount; ++i)
+                    packedFeatures[card] |= (long) feature(card, i) << (2 * i);
+        } else {
+            packedMask = 0;
+            packedFeatures = null;
         }
     }
 
+    @Override
+    public int feature(int card, int feature) {
+        return features[card * config.featureCount + feature];
+    }
+
+    @Override
+    public void cardToFeatures(int card, int[] features) {
+        System.arraycopy(this.features, card * config.featureCount, features, 0, config.featureCount);
+    }
+
     @Override
     public int[] cardToFeatures(int card) {
         int[] features = new int[config.featureCount];
@@ -34,27 +83,30 @@ public class UtilImpl implements Util {
     @Override
     public int[][] cardsToFeatures(int[] cards) {
         int[][] features = new int[cards.length][config.featureCount];
-        IntStream.range(0, cards.length).forEach(i -> cardToFeatures(cards[i], features[i]));
+        for (int i = 0; i < cards.length; ++i)
+            cardToFeatures(cards[i], features[i]);
         return features;
     }
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
+        if (packedFeatures != null && cards.length == 3)
+            return testPackedSet(packedFeatures[cards[0]], packedFeatures[cards[1]], packedFeatures[cards[2]]);
+
         for (int i = 0; i < config.featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
 
             // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
+            for (int j = 1; j < cards.length; ++j)
+                if (feature(cards[0], i) != feature(cards[j], i)) {
                     sameSame = false;
                     break;
                 }
 
             // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
+            for (int j = 1; j < cards.length && butDifferent; ++j)
+                for (int k = j; k < cards.length; ++k)
+                    if (feature(cards[j - 1], i) == feature(cards[k], i)) {
                         butDifferent = false;
                         break;
                     }
@@ -64,32 +116,250 @@ public class UtilImpl implements Util {
         return true;
     }
 
+    /**
+     * Checks all the features of 3 cards at once, using their packed feature words.
+     * Each feature is encoded as 0b00, 0b01 or 0b10, so in every 2-bit field:
+     * a ^ b ^ c == 0b11 iff the values are all different, and (a ^ b) | (b ^ c) == 0b00 iff they are all the same.
+     */
+    private boolean testPackedSet(long a, long b, long c) {
+        long different = a ^ b ^ c;
+        long mixed = (a ^ b) | (b ^ c);
+        long legal = (different & (different >>> 1)) | ~(mixed | (mixed >>> 1));
+        return (legal & packedMask) == packedMask;
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        if (deck.size() >= config.parallelSearchThreshold)
+            return findSetsInParallel(deck, count);
+
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
-        int[] combination = new int[r];
-
-        for (int i = 0; i < r; ++i)
-            combination[i] = i;
-
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
+        SetCursor cursor = setCursor(deck);
+        int[] set = new int[config.featureSize];
+        while (sets.size() < count && cursor.next(set))
+            sets.add(set.clone());
+        return sets;
+    }
+
+    @Override
+    public SetCursor setCursor(List<Integer> deck) {
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        return setCursor(cards, presence(cards), 0, cards.length);
+    }
+
+    /**
+     * Creates a cursor over the sets whose first card (in the given order) is in a range of indices.
+     */
+    private SetCursor setCursor(int[] cards, long[] present, int from, int to) {
+        return config.featureSize == 3 ? new PairCursor(cards, present, from, to) : new CombinationCursor(cards, from, to);
+    }
+
+    /**
+     * @return - a bitset over the deck, with the bits of the given cards set.
+     */
+    private long[] presence(int[] cards) {
+        long[] present = new long[(config.deckSize + 63) >>> 6];
+        for (int card : cards)
+            present[card >>> 6] |= 1L << card;
+        return present;
+    }
+
+    /**
+     * Finds sets of 3 by iterating over all pairs of cards and looking up the completing card in a presence bitset.
+     * This is O(n^2) instead of the O(n^3) scan over all the combinations.
+     */
+    private class PairCursor implements SetCursor {
+
+        private final int[] cards;
+        private final long[] present;
+        private final int to;
+        private int i;
+        private int j;
+
+        PairCursor(int[] cards, long[] present, int from, int to) {
+            this.cards = cards;
+            this.present = present;
+            this.to = to;
+            i = from;
+            j = from + 1;
+        }
+
+        @Override
+        public int setSize() {
+            return 3;
+        }
+
+        @Override
+        public boolean next(int[] set) {
+            for (; i < to; ++i, j = i + 1)
+                for (; j < cards.length; ++j) {
+                    int first = Math.min(cards[i], cards[j]), second = Math.max(cards[i], cards[j]);
+                    int third = completeSet(first, second);
+                    // report each set only once - from the pair of its two smallest cards
+                    if (third > second && (present[third >>> 6] & (1L << third)) != 0) {
+                        set[0] = first;
+                        set[1] = second;
+                        set[2] = third;
+                        ++j;
+                        return true;
+                    }
+                }
+            return false;
+        }
+    }
+
+    /**
+     * Finds sets by a depth first search over the combinations of config.featureSize cards (in lexicographic order).
+     * Features are checked incrementally as each card is added, so a branch is abandoned as soon as any feature is
+     * neither all the same nor all different among the cards chosen so far.
+     */
+    private class CombinationCursor implements SetCursor {
+
+        private final int[] cards;
+        private final int to;
+
+        /**
+         * The indices (in cards) of the chosen cards, followed by the next candidate index at the current depth.
+         */
+        private final int[] combination;
+
+        /**
+         * The values seen so far in each feature, as a bitmask per depth and feature (masks[d] is after d cards).
+         */
+        private final long[][] masks;
+
+        /**
+         * The number of cards chosen so far (-1 once all the combinations were searched).
+         */
+        private int depth;
+
+        CombinationCursor(int[] cards, int from, int to) {
+            this.cards = cards;
+            this.to = to;
+            combination = new int[config.featureSize];
+            masks = new long[config.featureSize + 1][config.featureCount];
+            combination[0] = from;
+        }
+
+        @Override
+        public int setSize() {
+            return combination.length;
+        }
+
+        @Override
+        public boolean next(int[] set) {
+            int n = cards.length;
+            int r = combination.length;
+            while (depth >= 0) {
+                // leave enough cards after the candidate to complete the combination
+                int limit = depth == 0 ? Math.min(to, n - r + 1) : n - r + depth + 1;
+                int candidate = combination[depth];
+                if (candidate >= limit) {
+                    if (--depth >= 0) combination[depth]++;
+                } else if (!extend(depth, cards[candidate])) {
+                    combination[depth]++;
+                } else if (depth == r - 1) {
+                    for (int i = 0; i < r; ++i)
+                        set[i] = cards[combination[i]];
+                    Arrays.sort(set);
+                    combination[depth]++;
+                    return true;
+                } else {
+                    combination[++depth] = candidate + 1;
+                }
             }
+            return false;
+        }
 
-            // generate next combination in lexicographic order
-            int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
-            combination[t]++;
-            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+        /**
+         * Adds a card to the cards chosen so far.
+         *
+         * @return - true iff every feature is still either all the same or all different.
+         */
+        private boolean extend(int depth, int card) {
+            long[] before = masks[depth], after = masks[depth + 1];
+            for (int i = 0; i < before.length; ++i) {
+                long value = 1L << feature(card, i);
+                int values = Long.bitCount(before[i]);
+                if ((before[i] & value) != 0 ? values != 1 : values != depth) return false;
+                after[i] = before[i] | value;
+            }
+            return true;
         }
+    }
+
+    /**
+     * Finds sets by splitting the deck into ranges of first cards that are searched by fork-join tasks.
+     * The tasks share a counter of the sets found, so they all stop once count sets were found.
+     */
+    private List<int[]> findSetsInParallel(List<Integer> deck, int count) {
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        SetBuffer sets = ForkJoinPool.commonPool().invoke(
+                new SetSearchTask(cards, presence(cards), 0, cards.length, count, new AtomicInteger()));
+        sets.truncate(count);
         return sets;
     }
 
+    /**
+     * A fork-join task that finds the sets whose first card is in a range of deck indices.
+     */
+    private class SetSearchTask extends RecursiveTask<SetBuffer> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The number of first cards below which a task is not split any further.
+         */
+        private static final int LEAF_SIZE = 16;
+
+        private final int[] cards;
+        private final long[] present;
+        private final int from;
+        private final int to;
+        private final int count;
+        private final AtomicInteger found;
+
+        SetSearchTask(int[] cards, long[] present, int from, int to, int count, AtomicInteger found) {
+            this.cards = cards;
+            this.present = present;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+            this.found = found;
+        }
+
+        @Override
+        protected SetBuffer compute() {
+            if (to - from <= LEAF_SIZE) {
+                SetBuffer sets = new SetBuffer(config.featureSize);
+                SetCursor cursor = setCursor(cards, present, from, to);
+                int[] set = new int[config.featureSize];
+                while (found.get() < count && cursor.next(set)) {
+                    sets.append(set);
+                    if (found.incrementAndGet() >= count) break;
+                }
+                return sets;
+            }
+
+            int middle = (from + to) >>> 1;
+            SetSearchTask left = new SetSearchTask(cards, present, from, middle, count, found);
+            left.fork();
+            SetBuffer right = new SetSearchTask(cards, present, middle, to, count, found).compute();
+            SetBuffer sets = left.join();
+            sets.appendAll(right);
+            return sets;
+        }
+    }
+
+    @Override
+    public int completeSet(int first, int second) {
+        if (config.featureSize != 3) return -1;
+        int third = 0;
+        for (int i = 0; i < config.featureCount; ++i)
+            third += (6 - feature(first, i) - feature(second, i)) % 3 * featureWeights[i]; // all same or all different
+        return third;
+    }
+
     public void spin() {
         if (config.randomSpinMax <= 0) return;
         long cycles = ThreadLocalRandom.current().nextLong(config.randomSpinMin, config.randomSpinMax);
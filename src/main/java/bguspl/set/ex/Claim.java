@@ -0,0 +1,48 @@
+package bguspl.set.ex;
+
+/**
+ * A set claimed by a player (the slots of the player's tokens and the cards in them when the claim was made).
+ */
+public class Claim {
+
+    private final int playerId;
+    private final int[] slots;
+    private final int[] cards;
+    private final long nanoTime;
+    private final long epoch;
+
+    /**
+     * @param playerId - the id of the claiming player.
+     * @param slots    - the slots of the claimed cards.
+     * @param cards    - the cards in the slots when the claim was made.
+     * @param nanoTime - the System.nanoTime() when the claim was made.
+     * @param epoch    - the table epoch when the claim was made.
+     */
+    public Claim(int playerId, int[] slots, int[] cards, long nanoTime, long epoch) {
+        this.playerId = playerId;
+        this.slots = slots;
+        this.cards = cards;
+        this.nanoTime = nanoTime;
+        this.epoch = epoch;
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    public int[] getSlots() {
+        return slots;
+    }
+
+    public int[] getCards() {
+        return cards;
+    }
+
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+}
@@ -0,0 +1,46 @@
+package bguspl.set.ex;
+
+import bguspl.set.GameThreadFactory;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class holds the scheduled executors that generate the key presses of all the computer players in the process
+ * (of all the games), instead of a thread per computer player. The threads of an executor (one per core) are created
+ * by the game's thread factory (env.threads), so they are platform or virtual threads as configured (one executor per
+ * kind), and only run short tasks, so many computer players share each core.
+ */
+final class ComputerInput {
+
+    private static ScheduledExecutorService platform;
+    private static ScheduledExecutorService virtual;
+
+    private ComputerInput() {}
+
+    /**
+     * @param threads - the thread factory of the game.
+     * @return - the executor shared by all the computer players in the process whose threads are of the same kind.
+     */
+    static synchronized ScheduledExecutorService executor(GameThreadFactory threads) {
+        if (threads.isVirtual()) {
+            if (virtual == null) virtual = create(threads);
+            return virtual;
+        }
+        if (platform == null) platform = create(threads);
+        return platform;
+    }
+
+    private static ScheduledExecutorService create(GameThreadFactory threads) {
+        AtomicInteger count = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                Runtime.getRuntime().availableProcessors(), target -> {
+                    Thread thread = threads.newThread(target, "computer-input-" + count.incrementAndGet());
+                    thread.setDaemon(true); // the executor is never shut down (virtual threads are always daemons)
+                    return thread;
+                });
+        executor.setRemoveOnCancelPolicy(true); // ended games do not leave their ticks behind
+        return executor;
+    }
+}
@@ -0,0 +1,34 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * The strategy of a computer player: which key to press next, and when.
+ * The strategy is used by the player's AI task only, which never runs concurrently with itself (so it does not need
+ * to be thread safe).
+ */
+public interface ComputerStrategy {
+
+    /**
+     * @return - the slot of the next key to press.
+     */
+    int nextKey();
+
+    /**
+     * @return - the number of milliseconds to wait before the next key press (the reaction time).
+     */
+    long nextDelayMillis();
+
+    /**
+     * Creates the strategy configured by config.computerStrategy.
+     *
+     * @param env    - the environment object.
+     * @param table  - the table object.
+     * @param player - the computer player.
+     * @return - the strategy.
+     */
+    static ComputerStrategy create(Env env, Table table, Player player) {
+        if (env.config.computerStrategy.equals("sets")) return new SetAwareStrategy(env, table, player);
+        return new RandomStrategy(env);
+    }
+}
@@ -1,12 +1,14 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.TimingWheel;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Objects;
+import java.util.Random;
 
 /**
  * This class manages the dealer's threads and data
@@ -25,9 +27,19 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final Deck deck;
+
+    /**
+     * Tracks the legal sets that can still be formed by the cards left in the game.
+     */
+    private final SetTracker setTracker;
+
+    /**
+     * Performance counters of the game.
+     */
+    private final GameStats stats = new GameStats();
 
     /**
      * True iff game should be terminated.
@@ -39,17 +51,47 @@ public class Dealer implements Runnable {
      */
     private long reshuffleTime = Long.MAX_VALUE;
 
+    /**
+     * The countdown to the reshuffle (or the elapsed time display when there is no countdown), run by env.timers.
+     */
+    private volatile TimingWheel.Timeout timer;
+
+    /**
+     * The lock the dealer waits on until a claim, the reshuffle time or termination, notified by wakeUp.
+     */
+    private final Object wakeUpLock = new Object();
+
+    /**
+     * The number of milliseconds in a second (the elapsed time display resolution).
+     */
+    private static final long SECOND_MILLIS = 1000;
+
     //added fields
 
 
     public Integer[] slotsToRemove = new Integer[3];
 
+    /**
+     * The seed of the game.
+     */
+    private final long seed;
+
 
     public Dealer(Env env, Table table, Player[] players) {
+        this(env, table, players, env.config.seed != 0 ? env.config.seed : new Random().nextLong());
+    }
+
+    /**
+     * @param seed - the seed of the deck shuffles (recorded in the journal, along with the key presses, so the game
+     *               can be replayed).
+     */
+    public Dealer(Env env, Table table, Player[] players, long seed) {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        this.seed = seed;
+        deck = new Deck(env.config.deckSize, new Random(seed));
+        setTracker = new SetTracker(env);
     }
 
     /**
@@ -58,15 +100,15 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
+        env.journal.seed(seed);
         for(int i= 0; i< players.length; i++){
-            Thread playerT= new Thread(players[i],"player-" + (i+1));
+            Thread playerT= env.threads.newThread(players[i],"player-" + (i+1));
             playerT.start();
         }
+        deck.shuffle();
         while (!shouldFinish()) {
-            Collections.shuffle(deck);
             placeCardsOnTable();
             timerLoop();
-            updateTimerDisplay(false);
             removeAllCardsFromTable();
         }
         announceWinners();
@@ -81,12 +123,12 @@ public class Dealer implements Runnable {
      * that the time has passed.
      */
     private void timerLoop() {
-        updateTimerDisplay(true);
+        resetTimer();
         while (!terminate && System.currentTimeMillis() < reshuffleTime) {
-            updateTimerDisplay(false);
             sleepUntilWokenOrTimeout();
-            updateTimerDisplay(false);
             placeCardsOnTable();
+            // without a countdown there must always be a set on the table, otherwise reshuffle
+            if (env.config.turnTimeoutMillis <= 0 && !table.anySet()) break;
         }
     }
 
@@ -99,7 +141,9 @@ public class Dealer implements Runnable {
             player.terminate();
         }
         terminate = true;
-        Thread.currentThread().interrupt();
+        TimingWheel.Timeout timer = this.timer;
+        if (timer != null) timer.cancel();
+        wakeUp();
         //dealer's terminate should call all terminates.
         // TODO implement
     }
@@ -110,7 +154,7 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !setTracker.anySet();
     }
 
     /**
@@ -118,11 +162,12 @@ public class Dealer implements Runnable {
      */
     private void removeCardsFromTable() {
         if(!terminate){
-            for(int i = 0; i<slotsToRemove.length; i++){
-                if(slotsToRemove[i] != null){
-                    table.removeCard(slotsToRemove[i]);
-                }
+            int[] slots = Arrays.stream(slotsToRemove).filter(Objects::nonNull).mapToInt(Integer::intValue).toArray();
+            for (int slot : slots) {
+                Integer card = table.slotToCard[slot];
+                if (card != null) setTracker.remove(card);
             }
+            table.removeCards(slots);
         }
 
         // TODO implement
@@ -134,15 +179,20 @@ public class Dealer implements Runnable {
     private void placeCardsOnTable() {
         if(!terminate) {
             int cards = table.countCards();
-            if (cards < 12) {
-                int toPlace = Math.min(12 - cards, deck.size());
-                for (int i = 0; i < toPlace; i++) {
-                    int card = deck.remove(0);
-                    int firstEmptySlot = table.findFirstEmptySlot();
-                    if (firstEmptySlot != -1) {
-                        table.placeCard(card, firstEmptySlot);
+            if (cards < env.config.tableSize) {
+                int toPlace = Math.min(env.config.tableSize - cards, deck.size());
+                int[] cardsToPlace = new int[toPlace];
+                int[] slots = new int[toPlace];
+                for (int slot = 0, i = 0; i < toPlace; slot++) {
+                    if (table.slotToCard[slot] == null) {
+                        cardsToPlace[i] = deck.draw();
+                        slots[i++] = slot;
                     }
                 }
+                table.placeCards(cardsToPlace, slots);
+            }
+            if (env.config.turnTimeoutMillis <= 0) {
+                dealSet();
             }
             if (env.config.hints) {
                 table.hints();
@@ -153,34 +203,57 @@ public class Dealer implements Runnable {
 
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Makes sure there is a legal set on the table (for modes without a countdown, which never reshuffle on their own).
+     * If there is none, finds a pair of cards on the table whose completing card is still in the deck and deals it,
+     * in an empty slot or instead of another card (which returns to a random position in the deck, so the next refill
+     * does not deal it right back). Completing cards are looked up rather than searched for, so this costs
+     * O(tableSize^2).
+     *
+     * @return - true iff there is a legal set on the table.
+     */
+    private boolean dealSet() {
+        if (table.anySet()) return true;
+        if (env.config.featureSize != 3) return false; // sets cannot be completed from pairs
+
+        for (int first = 0; first < table.slotToCard.length; ++first)
+            for (int second = first + 1; second < table.slotToCard.length; ++second) {
+                Integer firstCard = table.slotToCard[first], secondCard = table.slotToCard[second];
+                if (firstCard == null || secondCard == null) continue;
+                int third = env.util.completeSet(firstCard, secondCard);
+                if (!deck.remove(third)) continue;
+
+                int slot = table.findFirstEmptySlot();
+                if (slot == -1) {
+                    slot = first == 0 ? (second == 1 ? 2 : 1) : 0; // any slot other than the pair's
+                    removeTokensFromSlot(slot);
+                    deck.insert(table.slotToCard[slot]);
+                }
+                table.placeCards(new int[]{third}, new int[]{slot}); // replaces the card in the slot, if any
+                return true;
+            }
+        return false;
+    }
+
+    /**
+     * Sleep until the thread is awakened for some purpose (the countdown display is updated by env.timers).
      * should be woken if: terminate, timeout reached, provoked by player
      */
     private void sleepUntilWokenOrTimeout() {
         if(!terminate) {
-            while (!table.shouldDealerCheck && System.currentTimeMillis() < reshuffleTime) {
-                try {
-                    if(reshuffleTime - System.currentTimeMillis() > env.config.turnTimeoutWarningMillis){
-                        Thread.sleep(900);
-                        updateTimerDisplay(false);
-                    }
-                    else{
-                        Thread.sleep(100);
-                        updateTimerDisplay(false);
-                    }
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+            synchronized (wakeUpLock) {
+                long now = System.currentTimeMillis();
+                while (!terminate && !table.hasClaims() && now < reshuffleTime) {
+                    try {
+                        // woken by a claim, termination or the countdown at the reshuffle time, and bounded by the
+                        // reshuffle time in case the countdown does not wake the dealer
+                        wakeUpLock.wait(reshuffleTime - now);
+                    } catch (InterruptedException ignored) {}
+                    now = System.currentTimeMillis();
                 }
             }
-            if (table.shouldDealerCheck) {
-                synchronized (table.shouldDealerCheck) {
-                    for (Player currplayer : players) {
-                        if (table.setCheckQueue.peek() != null && currplayer.id == table.setCheckQueue.peek().getPlayerId()) {
-                            checkSet(currplayer);
-                            break;
-                        }
-                    }
-                }
+            if (terminate) return;
+            if (table.hasClaims()) {
+                checkClaims();
             } else {
                 removeAllCardsFromTable();
             }
@@ -188,36 +261,56 @@ public class Dealer implements Runnable {
     }
 
     /**
-     * Reset and/or update the countdown and the countdown display.
+     * Wakes up the dealer thread (e.g. when a player submits a set to check).
      */
-    private void updateTimerDisplay(boolean reset) {
-        long timerDisplay = 0 ;
-        if(reset) {
-            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-            timerDisplay = env.config.turnTimeoutMillis;
+    public void wakeUp() {
+        synchronized (wakeUpLock) {
+            wakeUpLock.notifyAll();
         }
-        else {
-            timerDisplay = reshuffleTime - System.currentTimeMillis();
+    }
+
+    /**
+     * Resets the countdown to the reshuffle and restarts its display on env.timers (the display is updated only when
+     * the shown value changes). Without a countdown, restarts the elapsed time display instead (or shows nothing).
+     */
+    private void resetTimer() {
+        TimingWheel.Timeout previous = timer;
+        if (previous != null) previous.cancel();
+        if (terminate) return;
+
+        long now = System.currentTimeMillis();
+        if (env.config.turnTimeoutMillis > 0) {
+            reshuffleTime = now + env.config.turnTimeoutMillis;
+            timer = env.timers.countdown(reshuffleTime, env.config.turnTimeoutWarningMillis, env.ui::setCountdown, this::wakeUp);
+        } else if (env.config.turnTimeoutMillis == 0) {
+            // the time since the last action (reshuffle or set collected)
+            env.ui.setElapsed(0);
+            timer = env.timers.scheduleAtFixedRate(() -> env.ui.setElapsed(System.currentTimeMillis() - now),
+                    SECOND_MILLIS, SECOND_MILLIS);
         }
-        env.ui.setCountdown(timerDisplay, timerDisplay < env.config.turnTimeoutWarningMillis);
     }
 
 
     /**
-     * Returns all the cards from the table to the deck.
+     * Returns all the cards from the table to the deck and shuffles it, so the next deal is a different table.
      */
     private void removeAllCardsFromTable() {
         if(!terminate) {
-            for (int i = 0; i < table.slotToCard.length; i++) {
+            int[] slots = new int[table.slotToCard.length];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = i;
                 if (table.slotToCard[i] != null) {
                     deck.add(table.slotToCard[i]);
-                    table.removeCard(i);
                 }
             }
-            if (env.util.findSets(deck, 1).size() == 0) {
+            table.removeCards(slots);
+            if (!setTracker.anySet()) {
                 terminate();
+            } else {
+                deck.shuffle(); // the returned cards are on the top of the deck
+                stats.reshuffled(); // the cards are dealt again (not the end of the game)
             }
-            updateTimerDisplay(true);
+            resetTimer();
             removeAllTokens();
         }
 
@@ -249,45 +342,69 @@ public class Dealer implements Runnable {
     }
 
     /**
-     * Notifies the dealer that a player placed 3 tokens.
+     * Drains all the pending claims and checks them in the order they were made.
+     */
+    private void checkClaims() {
+        List<Claim> claims = new ArrayList<>();
+        for (Claim claim = table.pollClaim(); claim != null; claim = table.pollClaim())
+            claims.add(claim);
+        claims.sort(Comparator.comparingLong(Claim::getNanoTime));
+        for (Claim claim : claims)
+            checkSet(claim);
+    }
+
+    /**
+     * Checks a set claimed by a player. Claims made stale by an earlier accepted set are rejected without a penalty.
      *
-     * @param player - the player that placed 3 tokens.
+     * @param claim - the claim of the player that placed 3 tokens.
      */
-    public void checkSet(Player player) {
-        if(!terminate) {
-            int[] cards = new int[3];
-            Integer[] slots = new Integer[3];
-            int counter = 0;
-            List<Integer> playerTokens = table.playerToToken.get(player.id);
-            for (Integer slot : playerTokens) {
-                slots[counter] = slot;
-                if (table.slotToCard[slot] != null) {
-                    int currCard = table.slotToCard[slot];
-                    cards[counter] = currCard;
-                    counter++;
-                }
-            }
-            if (env.util.testSet(cards)) {
-                slotsToRemove = slots;
-                removeTokensFromPlayer();
-                removeCardsFromTable();
-                givePoint(player);
-                placeCardsOnTable();
-                updateTimerDisplay(true);
-            } else {
-                givePenalty(player);
+    private void checkSet(Claim claim) {
+        Player player = players[claim.getPlayerId()];
+        if (terminate) return;
+        if (table.isStale(claim)) {
+            stats.claimStale();
+            env.journal.verdict(player.id, -1);
+            player.claimDecided();
+            return;
+        }
 
-            }
-            table.shouldDealerCheck = false;
+        boolean legal = env.util.testSet(claim.getCards());
+        stats.claimVerified(legal, System.nanoTime() - claim.getNanoTime());
+        env.journal.verdict(player.id, legal ? 1 : 0);
+        if (legal) {
+            slotsToRemove = Arrays.stream(claim.getSlots()).boxed().toArray(Integer[]::new);
+            removeTokensFromPlayer();
+            removeCardsFromTable();
+            givePoint(player);
+            placeCardsOnTable();
+            resetTimer();
+            player.claimDecided(); // after the table is refilled, so the player's next key presses follow the refill
+        } else {
+            givePenalty(player);
+            player.claimDecided();
         }
     }
 
+    /**
+     * @return - the seed of the game.
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * @return - the performance counters of the game.
+     */
+    public GameStats stats() {
+        return stats;
+    }
+
     private void givePenalty(Player player) {
-        player.setDelay(3000);
+        player.claimRejected();
     }
 
     private void givePoint(Player player) {
-        player.setDelay(1000);
+        player.claimAccepted();
     }
 
     private void removeTokensFromPlayer() {
@@ -307,6 +424,14 @@ public class Dealer implements Runnable {
         }
     }
 
+    private void removeTokensFromSlot(int slot) {
+        for (Player currPlayer : players) {
+            if (currPlayer.myTokensQueue.remove(slot)) {
+                table.removeToken(currPlayer.id, slot);
+            }
+        }
+    }
+
     private void removeAllTokens(){
         for(Player currPlayer: players){
             for(int currTokenSlot :currPlayer.myTokensQueue){
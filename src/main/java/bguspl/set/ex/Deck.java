@@ -0,0 +1,139 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class holds the cards left in the dealer's deck as a primitive array with a top of deck cursor.
+ *
+ * @inv cards[indexOf[c]] == c for every card c in the deck, and indexOf[c] == -1 for every other card
+ */
+class Deck {
+
+    /**
+     * The card ids in the deck: cards[0..size) are in the deck and cards[size - 1] is the top of the deck.
+     */
+    private final int[] cards;
+
+    /**
+     * The index of each card in cards (-1 if the card is not in the deck).
+     */
+    private final int[] indexOf;
+
+    /**
+     * The number of cards in the deck.
+     */
+    private int size;
+
+    /**
+     * The random number generator used to shuffle the deck.
+     */
+    private final Random random;
+
+    /**
+     * Creates a deck with all the cards.
+     *
+     * @param deckSize - the number of cards (card ids are 0..deckSize - 1).
+     * @param random   - the random number generator used to shuffle the deck (seed it for reproducible games).
+     */
+    public Deck(int deckSize, Random random) {
+        this.random = random;
+        cards = new int[deckSize];
+        indexOf = new int[deckSize];
+        for (int card = 0; card < deckSize; ++card) {
+            cards[card] = card;
+            indexOf[card] = card;
+        }
+        size = deckSize;
+    }
+
+    /**
+     * @return - the number of cards in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return - true iff the card is in the deck.
+     */
+    public boolean contains(int card) {
+        return indexOf[card] != -1;
+    }
+
+    /**
+     * Shuffles the deck in place (Fisher-Yates).
+     */
+    public void shuffle() {
+        for (int i = size - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            int card = cards[i];
+            cards[i] = cards[j];
+            cards[j] = card;
+            indexOf[cards[i]] = i;
+            indexOf[cards[j]] = j;
+        }
+    }
+
+    /**
+     * Draws the card on the top of the deck.
+     *
+     * @return - the card id.
+     * @pre - size() > 0
+     */
+    public int draw() {
+        int card = cards[--size];
+        indexOf[card] = -1;
+        return card;
+    }
+
+    /**
+     * Returns a card to the top of the deck.
+     *
+     * @param card - the card id.
+     * @pre - !contains(card)
+     */
+    public void add(int card) {
+        cards[size] = card;
+        indexOf[card] = size++;
+    }
+
+    /**
+     * Returns a card to a random position in the deck (so it is not drawn again right away).
+     *
+     * @param card - the card id.
+     * @pre - !contains(card)
+     */
+    public void insert(int card) {
+        add(card);
+        int index = random.nextInt(size);
+        int other = cards[index];
+        cards[index] = card;
+        cards[size - 1] = other;
+        indexOf[card] = index;
+        indexOf[other] = size - 1;
+    }
+
+    /**
+     * Takes a specific card out of the deck (the top card takes its place).
+     *
+     * @param card - the card id.
+     * @return - true iff the card was in the deck.
+     */
+    public boolean remove(int card) {
+        int index = indexOf[card];
+        if (index == -1) return false;
+        int top = cards[--size];
+        cards[index] = top;
+        indexOf[top] = index;
+        indexOf[card] = -1;
+        return true;
+    }
+
+    /**
+     * @return - a copy of the cards in the deck (bottom to top).
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(cards, size);
+    }
+}
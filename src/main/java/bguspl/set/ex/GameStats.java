@@ -0,0 +1,102 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects performance counters of a single game (claims, verdicts, reshuffles and claim latencies).
+ * All the methods are thread safe and do not allocate.
+ */
+public class GameStats {
+
+    /**
+     * The number of latency buckets (bucket i > 0 holds latencies in [2^(i-1), 2^i) nanoseconds).
+     */
+    private static final int LATENCY_BUCKETS = Long.SIZE;
+
+    private final LongAdder claimsSubmitted = new LongAdder();
+    private final LongAdder claimsVerified = new LongAdder();
+    private final LongAdder setsCollected = new LongAdder();
+    private final LongAdder penalties = new LongAdder();
+    private final LongAdder staleClaims = new LongAdder();
+    private final LongAdder reshuffles = new LongAdder();
+    private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS);
+
+    /**
+     * Called when a player submits a claim (3 tokens) to the dealer.
+     */
+    public void claimSubmitted() {
+        claimsSubmitted.increment();
+    }
+
+    /**
+     * Called when the dealer decides on a claim.
+     *
+     * @param legal        - true iff the claim was a legal set.
+     * @param latencyNanos - the time from submitting the claim until the verdict.
+     */
+    public void claimVerified(boolean legal, long latencyNanos) {
+        claimsVerified.increment();
+        if (legal) setsCollected.increment();
+        else penalties.increment();
+        latencies.incrementAndGet(LATENCY_BUCKETS - Long.numberOfLeadingZeros(Math.max(latencyNanos, 0)));
+    }
+
+    /**
+     * Called when the dealer rejects a claim that was made stale by an earlier accepted set.
+     */
+    public void claimStale() {
+        staleClaims.increment();
+    }
+
+    /**
+     * Called when the dealer returns all the cards on the table to the deck to deal them again (not at the end of the
+     * game).
+     */
+    public void reshuffled() {
+        reshuffles.increment();
+    }
+
+    public long claimsSubmitted() {
+        return claimsSubmitted.sum();
+    }
+
+    public long claimsVerified() {
+        return claimsVerified.sum();
+    }
+
+    public long setsCollected() {
+        return setsCollected.sum();
+    }
+
+    public long penalties() {
+        return penalties.sum();
+    }
+
+    public long staleClaims() {
+        return staleClaims.sum();
+    }
+
+    public long reshuffles() {
+        return reshuffles.sum();
+    }
+
+    /**
+     * Estimates a percentile of the claim to verdict latency (up to a factor of 2).
+     *
+     * @param percentile - the percentile (between 0 and 100).
+     * @return - an upper bound of the latency at that percentile in nanoseconds (0 if no claims were verified).
+     */
+    public long latencyPercentileNanos(double percentile) {
+        long total = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; ++i)
+            total += latencies.get(i);
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; ++i) {
+            seen += latencies.get(i);
+            if (seen >= rank && seen > 0) return i == LATENCY_BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+        }
+        return 0;
+    }
+}
@@ -1,10 +1,16 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.TimingWheel;
 
 import java.util.ArrayList;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -36,15 +42,39 @@ public class Player implements Runnable {
     private Thread playerThread;
 
     /**
-     * The thread of the AI (computer) player (an additional thread used to generate key presses).
+     * The executor of the AI (computer) player's task that generates its key presses (see ComputerInput), and the
+     * task when it is periodic (with a key press rate limit).
      */
-    private Thread aiThread;
+    private volatile ScheduledExecutorService aiExecutor;
+    private volatile ScheduledFuture<?> aiTask;
+
+    /**
+     * Without a key press rate limit: the number of requests to run the AI task since it last ran (it runs only when
+     * the player may accept a key press, see inputChanged).
+     */
+    private final AtomicInteger aiRequests = new AtomicInteger();
 
     /**
      * True iff the player is human (not a computer player).
      */
     private final boolean human;
 
+    /**
+     * True iff the key presses of a computer player are generated by its AI task (false when they are replayed).
+     */
+    private final boolean simulated;
+
+    /**
+     * The strategy of the computer player's key presses (null if the key presses are not generated).
+     */
+    private final ComputerStrategy strategy;
+
+    /**
+     * The earliest time (as in System.nanoTime()) of the computer player's next key press, by its reaction time
+     * (accessed by the AI task only).
+     */
+    private long nextKeyNanos;
+
     /**
      * True iff game should be terminated.
      */
@@ -62,15 +92,49 @@ public class Player implements Runnable {
     private Dealer dealer;
 
     /**
-     * Queue of tokens, size>0 if player can place tokens. if player removes tokens, queue.add(token)
-     * the values inside the items of the queue are not relevant
+     * The messages of the player thread, which blocks on this queue when it has nothing to do: key presses (the slot)
+     * and the POINT, PENALTY, FREEZE_END and TERMINATE commands.
+     */
+    private final BlockingQueue<Integer> messages = new LinkedBlockingQueue<>();
+
+    private static final int POINT = -1;
+    private static final int PENALTY = -2;
+    private static final int FREEZE_END = -3;
+    private static final int TERMINATE = -4;
+
+    /**
+     * The maximum number of key presses waiting to be handled (more key presses are dropped).
      */
-    public ArrayBlockingQueue<Integer> keyPressQueue = new ArrayBlockingQueue<>(3);
+    static final int MAX_PENDING_KEYS = 3;
+
+    /**
+     * The number of key presses in the message queue.
+     */
+    private final AtomicInteger pendingKeys = new AtomicInteger();
 
     public ArrayBlockingQueue<Integer> myTokensQueue = new ArrayBlockingQueue<>(3);
 
+    /**
+     * The time (as in System.currentTimeMillis()) the player's freeze ends: key presses are dropped until the player
+     * thread ends the freeze (at the deadline, after resetting the tokens) and sets it to 0.
+     * Long.MAX_VALUE from the verdict until the player thread starts the freeze.
+     */
+    private volatile long frozenUntil;
+
+    /**
+     * True iff the current freeze is a penalty (accessed by the player thread only).
+     */
+    private boolean penalized;
+
+    /**
+     * The freeze countdown display (and the FREEZE_END message at its end), run by env.timers.
+     */
+    private volatile TimingWheel.Timeout freezeTimer;
 
-    private long delay = -1;
+    /**
+     * True iff the player submitted a claim and the dealer did not decide on it yet.
+     */
+    private volatile boolean awaitingVerdict;
 
     /**
      * The class constructor.
@@ -82,11 +146,22 @@ public class Player implements Runnable {
      * @param human  - true iff the player is a human player (i.e. input is provided manually, via the keyboard).
      */
     public Player(Env env, Dealer dealer, Table table, int id, boolean human) {
+        this(env, dealer, table, id, human, !human);
+    }
+
+    /**
+     * @param simulated - true iff the key presses of a computer player are generated by its AI task (false when its
+     *                    key presses are provided by calling keyPressed, e.g. by a replay).
+     */
+    public Player(Env env, Dealer dealer, Table table, int id, boolean human, boolean simulated) {
         this.env = env;
         this.table = table;
         this.id = id;
         this.human = human;
+        this.simulated = simulated;
         this.dealer = dealer;
+        strategy = simulated ? ComputerStrategy.create(env, table, this) : null;
+        nextKeyNanos = System.nanoTime();
        // table.playerToToken.put(id, new ArrayList<Token>());
         if(table.playerToToken != null) {
             table.playerToToken.put(id, new ArrayList<>());
@@ -100,81 +175,128 @@ public class Player implements Runnable {
     public void run() {
         playerThread = Thread.currentThread();
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
-        if (!human) createArtificialIntelligence();
+        if (simulated) createArtificialIntelligence();
         while (!terminate) {
-            if(delay == 3000){
-                penalty();
+            int message;
+            try {
+                message = messages.take();
+            } catch (InterruptedException ignored) {
+                continue;
             }
-            else if(delay == 1000){
+            if (message == POINT) {
                 point();
+            } else if (message == PENALTY) {
+                penalty();
+            } else if (message == FREEZE_END) {
+                if (isFrozen() && System.currentTimeMillis() >= frozenUntil) unfreeze(); // not of an earlier freeze
+            } else if (message >= 0) {
+                pendingKeys.decrementAndGet();
+                if (!isFrozen()) placeToken(message); // pressed before the verdict froze the player
             }
-            else if(!keyPressQueue.isEmpty()){
-                Integer slot = null;
-                try {
-                    slot = keyPressQueue.take();
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-
-                placeToken(slot);
-            }
+            inputChanged();
         }
 
-        if (!human) try { aiThread.join(); } catch (InterruptedException ignored) {}
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
-     * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * Starts generating the key presses of an AI (computer) player, as chosen by the player's strategy (see
+     * config.computerStrategy), on the shared ComputerInput executor. With a rate limit, a periodic task ticks
+     * config.computerKeysPerSecond times a second and presses a key if it can. Without one, the task runs whenever the
+     * player may accept a key press (see inputChanged), and presses keys as long as it can.
      */
     private void createArtificialIntelligence() {
-        // note: this is a very, very smart AI (!)
-        aiThread = new Thread(() -> {
-            env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
-            while (!terminate) {
-                Integer slot = simulateKeyPress();
-                if (!table.shouldDealerCheck) {
-                    keyPressed(slot);
-                }
-            }
-            env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
-        }, "computer-" + id);
-        aiThread.start();
+        nextKeyNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(strategy.nextDelayMillis());
+        aiExecutor = ComputerInput.executor(env.threads);
+        if (env.config.computerKeysPerSecond > 0) {
+            long period = Math.max(1, (long) (1e9 / env.config.computerKeysPerSecond));
+            aiTask = aiExecutor.scheduleAtFixedRate(this::simulateKeyPress, period, period, TimeUnit.NANOSECONDS);
+            if (terminate) aiTask.cancel(false); // terminated while starting
+        } else {
+            inputChanged();
+        }
+    }
+
+    /**
+     * Presses the key chosen by the strategy, unless the player cannot accept it (frozen, waiting for a verdict or too
+     * many pending key presses) or the strategy's reaction time did not pass yet (called by the AI task only).
+     *
+     * @return - true iff a key was pressed.
+     */
+    boolean simulateKeyPress() {
+        if (terminate || !acceptsInput()) return false;
+        long now = System.nanoTime();
+        if (now - nextKeyNanos < 0) return false;
+        try {
+            if (!keyPressed(strategy.nextKey())) return false;
+            nextKeyNanos = now + TimeUnit.MILLISECONDS.toNanos(strategy.nextDelayMillis());
+            return true;
+        } catch (RuntimeException e) {
+            env.logger.severe("computer player " + id + " input failed: " + e); // the task would stop silently
+            return false;
+        }
+    }
+
+    /**
+     * Without a key press rate limit: runs the AI task, unless it is already running (then it runs again).
+     * Called whenever the player may have become able to accept a key press: by the player thread after every
+     * message, by the dealer after a verdict, and when the reaction time passes.
+     */
+    private void inputChanged() {
+        ScheduledExecutorService aiExecutor = this.aiExecutor;
+        if (aiExecutor == null || env.config.computerKeysPerSecond > 0) return;
+        if (aiRequests.getAndIncrement() == 0) aiExecutor.execute(this::simulateKeyPresses);
+    }
+
+    /**
+     * The AI task without a key press rate limit: presses keys as long as it can (only one run at a time).
+     */
+    private void simulateKeyPresses() {
+        int requests;
+        do {
+            requests = aiRequests.get();
+            while (simulateKeyPress());
+        } while (aiRequests.addAndGet(-requests) != 0); // requested again while running
+        long reaction = nextKeyNanos - System.nanoTime();
+        if (!terminate && reaction > 0) aiExecutor.schedule(this::inputChanged, reaction, TimeUnit.NANOSECONDS);
     }
 
     /**
      * Called when the game should be terminated.
      */
     public void terminate() {
-        keyPressQueue.clear();
         myTokensQueue.clear();
         terminate = true;
+        TimingWheel.Timeout freezeTimer = this.freezeTimer;
+        if (freezeTimer != null) freezeTimer.cancel();
+        ScheduledFuture<?> aiTask = this.aiTask;
+        if (aiTask != null) aiTask.cancel(false);
+        messages.add(TERMINATE);
         try {
-            playerThread.join();
+            if (playerThread != null) playerThread.join(); // null if the game was terminated before it started
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         }
-        if(!human){
-            aiThread.interrupt();
-        }
-
     }
 
     /**
      * This method is called when a key is pressed.
      *
      * @param slot - the slot corresponding to the key pressed.
+     * @return - true iff the key press was accepted (i.e. the player is not frozen and is not too far behind).
      */
-    public void keyPressed(int slot) {
-        if(delay == -1 && keyPressQueue.remainingCapacity() != 0) {
-            try {
-                this.keyPressQueue.add(slot);
-            } catch (IllegalStateException e) {
-                e.printStackTrace();
-            }
-        }
-        // TODO implement
+    public boolean keyPressed(int slot) {
+        if (isFrozen() || pendingKeys.get() >= MAX_PENDING_KEYS) return false;
+        pendingKeys.incrementAndGet();
+        messages.add(slot);
+        return true;
+    }
+
+    /**
+     * @return - true iff a key press would be accepted and handled (for the AI task and replays).
+     */
+    public boolean acceptsInput() {
+        return !isFrozen() && !awaitingVerdict && pendingKeys.get() < MAX_PENDING_KEYS;
     }
 
 
@@ -186,49 +308,58 @@ public class Player implements Runnable {
      */
     public void point() {
         score++;
-        try{
-            env.ui.setFreeze(id, env.config.pointFreezeMillis);
-            Thread.sleep(env.config.pointFreezeMillis);
-            if(!human){
-                Thread.sleep(env.config.pointFreezeMillis);
-            }
-        }catch (InterruptedException e){
-            e.printStackTrace();
-        }
         env.ui.setScore(id, score);
-        env.ui.setFreeze(id, 0);
-        //clears token queue
-        if(!myTokensQueue.isEmpty()){
-            myTokensQueue.clear();
-        }
-        delay = -1;
+        penalized = false;
+        freeze(env.config.pointFreezeMillis);
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
-
     }
 
     /**
      * Penalize a player and perform other related actions.
      */
     public void penalty() {
+        penalized = true;
+        freeze(env.config.penaltyFreezeMillis);
+    }
 
-        for(long penaltyTimeCountdown = env.config.penaltyFreezeMillis; penaltyTimeCountdown>=0; penaltyTimeCountdown=penaltyTimeCountdown-1000) {
-            try {
-                Thread.sleep(env.config.pointFreezeMillis);
-                if (!human) {
-                    Thread.sleep(env.config.pointFreezeMillis);
-                }
-                env.ui.setFreeze(id, penaltyTimeCountdown);
-
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    /**
+     * Freezes the player until a deadline, without blocking the player thread: key presses until then are dropped,
+     * the freeze display counts down on env.timers, and the timer sends FREEZE_END at the deadline.
+     *
+     * @param millis - the freeze time in milliseconds.
+     */
+    private void freeze(long millis) {
+        TimingWheel.Timeout previous = freezeTimer;
+        if (previous != null) previous.cancel();
+        if (millis <= 0) {
+            env.ui.setFreeze(id, 0);
+            unfreeze();
+            return;
         }
-        env.ui.setFreeze(id, 0);
-        if(!human){
+        long now = System.currentTimeMillis();
+        frozenUntil = now + millis;
+        freezeTimer = env.timers.countdown(now + millis, 0, (remaining, warn) -> env.ui.setFreeze(id, remaining),
+                () -> messages.add(FREEZE_END));
+    }
+
+    /**
+     * Ends a freeze (called by the player thread once the deadline passed).
+     */
+    private void unfreeze() {
+        if (!penalized) {
+            myTokensQueue.clear();
+        } else if (!human) {
             dealer.removerTokensFromPlayer(this);
         }
-        delay = -1;
-        // TODO implement
+        penalized = false;
+        frozenUntil = 0; // only now, so that no key press lands on the tokens of before the freeze
+    }
+
+    /**
+     * @return - true iff the player is frozen (key presses are dropped).
+     */
+    private boolean isFrozen() {
+        return frozenUntil != 0;
     }
 
     public int score() {
@@ -242,17 +373,21 @@ public class Player implements Runnable {
      */
     public void placeToken(Integer slot){
 
-        if(!table.shouldDealerCheck){
-            if(myTokensQueue.contains(slot)){ //already has token in slot, so remove token
-                table.removeToken(id,slot);
-                myTokensQueue.remove(slot);
-            }else if (myTokensQueue.remainingCapacity() != 0){
-                try{
-                    myTokensQueue.add(slot);
-                    table.placeToken(id, slot);
-                }catch (IllegalStateException e){
+        if(!awaitingVerdict){
+            // journaled by the player thread along with the token it leads to (key presses that have no effect are
+            // not journaled)
+            env.journal.keyPressed(id, slot, () -> {
+                if(myTokensQueue.contains(slot)){ //already has token in slot, so remove token
+                    table.removeToken(id,slot);
+                    myTokensQueue.remove(slot);
+                }else if (myTokensQueue.remainingCapacity() != 0){
+                    try{
+                        myTokensQueue.add(slot);
+                        table.placeToken(id, slot);
+                    }catch (IllegalStateException e){
+                    }
                 }
-            }
+            });
             if(myTokensQueue.remainingCapacity()==0){ //if queue is full
                 notifyDealer();
             }
@@ -260,33 +395,64 @@ public class Player implements Runnable {
 
     }
 
+    /**
+     * Submits the slots of the player's tokens as a claim for the dealer to check.
+     */
     public void notifyDealer(){
-        //check if cards are still on table
-        ArrayBlockingQueue<Token> toCheckQueue = new ArrayBlockingQueue<>(3);
+        // read the epoch before the cards, so that a change in between makes the claim stale
+        long epoch = table.epoch();
+        int[] slots = new int[myTokensQueue.size()];
+        int[] cards = new int[slots.length];
+        int counter = 0;
         for(Integer currToken: myTokensQueue){
-            if(table.slotToCard[currToken] == null){
-                return;
-            }
-            toCheckQueue.add(new Token(id,currToken));
             //check if the cards I placed tokens on are still on the table
-            if(!table.hasTokenInSlot(id, currToken)){
+            Integer card = table.slotToCard[currToken];
+            if(card == null || counter == slots.length || !table.hasTokenInSlot(id, currToken)){
                 return;
             }
+            slots[counter] = currToken;
+            cards[counter] = card;
+            counter++;
         }
-        table.setCheckQueue = toCheckQueue;
-        table.shouldDealerCheck = true;
+        if(counter != slots.length){
+            return;
+        }
+        awaitingVerdict = true;
+        env.journal.claim(id, slots, cards);
+        table.submitClaim(new Claim(id, slots, cards, System.nanoTime(), epoch));
+        dealer.stats().claimSubmitted();
+        dealer.wakeUp();
     }
 
-
-    private int simulateKeyPress(){
-        Random random = new Random();
-        int[] availableKeys = new int[env.config.tableSize];
-        int randomIndex = random.nextInt(availableKeys.length);
-        return randomIndex;
+    /**
+     * Called by the dealer once it decided on the player's claim (accepted, rejected or stale).
+     */
+    public void claimDecided() {
+        awaitingVerdict = false;
+        inputChanged();
     }
 
+    /**
+     * Called by the dealer when the player's claim is a legal set: freezes the player (key presses are dropped from
+     * now on) and has the player thread award the point. The new score and the freeze are journaled by the dealer
+     * thread, so they are in the same place among the dealer's events in every run of the game.
+     */
+    public void claimAccepted() {
+        env.journal.score(id, score + 1); // the player thread does not change the score while awaiting a verdict
+        env.journal.freeze(id, env.config.pointFreezeMillis);
+        frozenUntil = Long.MAX_VALUE;
+        messages.add(POINT);
+    }
 
-    public void setDelay(long i) {
-        delay = i;
+    /**
+     * Called by the dealer when the player's claim is not a legal set: freezes the player (key presses are dropped
+     * from now on) and has the player thread apply the penalty (the freeze is journaled as in claimAccepted).
+     */
+    public void claimRejected() {
+        env.journal.freeze(id, env.config.penaltyFreezeMillis);
+        frozenUntil = Long.MAX_VALUE;
+        messages.add(PENALTY);
     }
+
+
 }
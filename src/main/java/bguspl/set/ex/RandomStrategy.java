@@ -0,0 +1,34 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A computer player strategy that presses random slots. The reaction time before each key press is normally
+ * distributed, with a mean of config.computerReactionMillis and a standard deviation of
+ * config.computerReactionJitterMillis (never negative).
+ */
+class RandomStrategy implements ComputerStrategy {
+
+    /**
+     * The game environment object.
+     */
+    protected final Env env;
+
+    RandomStrategy(Env env) {
+        this.env = env;
+    }
+
+    @Override
+    public int nextKey() {
+        return ThreadLocalRandom.current().nextInt(env.config.tableSize);
+    }
+
+    @Override
+    public long nextDelayMillis() {
+        double delay = env.config.computerReactionMillis
+                + ThreadLocalRandom.current().nextGaussian() * env.config.computerReactionJitterMillis;
+        return Math.max(0, Math.round(delay));
+    }
+}
@@ -0,0 +1,69 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A computer player strategy that claims the legal sets on the table (read from the table's set index): with a
+ * probability of config.computerSetProbability it plans the key presses of a set on the table (first removing its
+ * own tokens that are not in the set), and otherwise presses a random slot. The plan is dropped when the table
+ * changes. The reaction times are as in RandomStrategy.
+ */
+class SetAwareStrategy extends RandomStrategy {
+
+    private final Table table;
+    private final Player player;
+
+    /**
+     * The slots of the planned set, and the planned key presses (from index next to count).
+     */
+    private final int[] set;
+    private final int[] plan;
+    private int next;
+    private int count;
+
+    /**
+     * The table epoch the plan was made at.
+     */
+    private long planEpoch = -1;
+
+    SetAwareStrategy(Env env, Table table, Player player) {
+        super(env);
+        this.table = table;
+        this.player = player;
+        set = new int[env.config.featureSize];
+        // at most a token to remove and a token to place per card of a set (a player has at most a set of tokens)
+        plan = new int[2 * env.config.featureSize];
+    }
+
+    @Override
+    public int nextKey() {
+        if (next == count || planEpoch != table.epoch()) plan();
+        return next < count ? plan[next++] : super.nextKey();
+    }
+
+    /**
+     * Plans the key presses of a random set on the table (none, with a probability of 1 - computerSetProbability).
+     */
+    private void plan() {
+        next = count = 0;
+        planEpoch = table.epoch();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() >= env.config.computerSetProbability) return;
+        int sets = table.setCount();
+        if (sets == 0 || !table.copySet(random.nextInt(sets), set)) return;
+
+        // tokens are toggled, so first remove the tokens outside the set, then place the missing ones
+        for (Integer slot : player.myTokensQueue)
+            if (!contains(set, slot)) plan[count++] = slot;
+        for (int slot : set)
+            if (!player.myTokensQueue.contains(slot)) plan[count++] = slot;
+    }
+
+    private static boolean contains(int[] slots, int slot) {
+        for (int other : slots)
+            if (other == slot) return true;
+        return false;
+    }
+}
@@ -0,0 +1,95 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class keeps track of the legal sets that can still be formed by the cards left in the game (deck and table).
+ *
+ * @inv liveSets == sum(setsWithCard) / 3 (for sets of 3)
+ */
+class SetTracker {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * True iff the card is still in the game (i.e. was not collected as part of a legal set).
+     */
+    private final boolean[] live;
+
+    /**
+     * The number of legal sets each card participates in among the live cards.
+     */
+    private final int[] setsWithCard;
+
+    /**
+     * The number of legal sets among the live cards.
+     */
+    private int liveSets;
+
+    public SetTracker(Env env) {
+        this.env = env;
+        live = new boolean[env.config.deckSize];
+        setsWithCard = new int[env.config.deckSize];
+        for (int card = 0; card < live.length; ++card)
+            live[card] = true;
+
+        if (env.config.featureSize == 3) {
+            // in a full deck every pair of cards is completed by exactly one third card, so each card is in one set
+            // per pair with another card (each set counted by 2 of the pairs), and each set is counted by its 3 cards
+            int deckSize = env.config.deckSize;
+            for (int card = 0; card < deckSize; ++card)
+                setsWithCard[card] = (deckSize - 1) / 2;
+            liveSets = deckSize * (deckSize - 1) / 6;
+        }
+    }
+
+    private void countSet(int first, int second, int third, int delta) {
+        setsWithCard[first] += delta;
+        setsWithCard[second] += delta;
+        setsWithCard[third] += delta;
+        liveSets += delta;
+    }
+
+    /**
+     * Removes a card from the game, along with all the sets it participates in.
+     *
+     * @param card - the card id that left the game.
+     */
+    public void remove(int card) {
+        if (!live[card]) return;
+        live[card] = false;
+
+        if (env.config.featureSize == 3)
+            for (int other = 0; other < live.length; ++other) {
+                if (!live[other]) continue;
+                int third = env.util.completeSet(card, other);
+                if (other < third && live[third]) countSet(card, other, third, -1);
+            }
+    }
+
+    /**
+     * @param card - the card id.
+     * @return - the number of legal sets the card participates in among the live cards.
+     */
+    public int setsWith(int card) {
+        return setsWithCard[card];
+    }
+
+    /**
+     * @return - true iff at least one legal set can still be formed by the cards left in the game.
+     */
+    public boolean anySet() {
+        if (env.config.featureSize == 3) return liveSets > 0;
+
+        // sets of other sizes cannot be completed from pairs, so they are not counted
+        List<Integer> cards = IntStream.range(0, live.length).filter(card -> live[card]).boxed().collect(Collectors.toList());
+        return !env.util.findSets(cards, 1).isEmpty();
+    }
+}
@@ -7,7 +7,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.HashMap;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 
 
@@ -38,8 +38,23 @@ public class Table {
       * HasMap used to map players and their tokens placement.
       */
     protected HashMap<Integer, List<Integer>> playerToToken;
-    public ArrayBlockingQueue<Token> setCheckQueue = new ArrayBlockingQueue<>(3);
-    public Boolean shouldDealerCheck = false;
+
+    /**
+     * The claims submitted by players and not yet checked by the dealer (many players, one dealer).
+     */
+    private final ConcurrentLinkedQueue<Claim> claims = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Incremented whenever a card is placed or removed, so the dealer can tell if a claim may be stale.
+     */
+    private volatile long epoch;
+
+    /**
+     * The legal sets currently on the table, as consecutive groups of config.featureSize slots (only the first setCount
+     * groups are valid). Kept up to date by placeCard and removeCard.
+     */
+    private int[] setSlots = new int[0];
+    private int setCount;
 
     /**
      * Constructor for testing.
@@ -71,13 +86,91 @@ public class Table {
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        int[] set = new int[env.config.featureSize];
+        for (int i = 0; copySet(i, set); ++i) {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
-            int[][] features = env.util.cardsToFeatures(set);
+            int[] cards = Arrays.stream(set).map(slot -> slotToCard[slot]).toArray();
+            List<Integer> slots = Arrays.stream(set).boxed().sorted().collect(Collectors.toList());
+            int[][] features = env.util.cardsToFeatures(cards);
             System.out.println(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
-        });
+        }
+    }
+
+    /**
+     * @return - the number of legal sets currently on the table.
+     */
+    public synchronized int setCount() {
+        return setCount;
+    }
+
+    /**
+     * @return - true iff there is at least one legal set on the table.
+     */
+    public synchronized boolean anySet() {
+        return setCount > 0;
+    }
+
+    /**
+     * Copies the slots of one of the legal sets currently on the table.
+     *
+     * @param index - the index of the set (between 0 and setCount() - 1).
+     * @param slots - an array of config.featureSize to copy the slots of the set into.
+     * @return - true iff there is a set with this index.
+     */
+    public synchronized boolean copySet(int index, int[] slots) {
+        if (index < 0 || index >= setCount) return false;
+        System.arraycopy(setSlots, slots.length * index, slots, 0, slots.length);
+        return true;
+    }
+
+    /**
+     * Adds the sets formed by a newly placed card and the cards already on the table to the set index.
+     * For sets of 3 only pairs are checked (the third card is looked up), so this is linear in the table size.
+     */
+    private void indexSetsWith(int card, int slot) {
+        if (env.config.featureSize != 3) {
+            reindexSets();
+            return;
+        }
+        for (int other = 0; other < slotToCard.length; ++other) {
+            if (other == slot || slotToCard[other] == null) continue;
+            int third = env.util.completeSet(card, slotToCard[other]);
+            // every set is added once - when the other card is the smaller of the two that were already placed
+            if (third >= 0 && cardToSlot[third] != null && slotToCard[other] < third)
+                addSet(new int[]{slot, other, cardToSlot[third]});
+        }
+    }
+
+    /**
+     * Removes all the sets that include a slot from the set index.
+     */
+    private void unindexSetsWith(int slot) {
+        if (env.config.featureSize != 3) {
+            reindexSets();
+            return;
+        }
+        for (int i = setCount - 1; i >= 0; --i)
+            if (setSlots[3 * i] == slot || setSlots[3 * i + 1] == slot || setSlots[3 * i + 2] == slot) {
+                --setCount;
+                System.arraycopy(setSlots, 3 * setCount, setSlots, 3 * i, 3);
+            }
+    }
+
+    /**
+     * Rebuilds the set index from scratch (for set sizes other than 3, where sets cannot be completed from pairs).
+     */
+    private void reindexSets() {
+        setCount = 0;
+        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
+        for (int[] set : env.util.findSets(deck, Integer.MAX_VALUE))
+            addSet(Arrays.stream(set).map(card -> cardToSlot[card]).toArray());
+    }
+
+    private void addSet(int[] slots) {
+        int offset = slots.length * setCount;
+        if (offset == setSlots.length) setSlots = Arrays.copyOf(setSlots, Math.max(slots.length, 2 * setSlots.length));
+        System.arraycopy(slots, 0, setSlots, offset, slots.length);
+        ++setCount;
     }
 
     /**
@@ -105,8 +198,18 @@ public class Table {
             Thread.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {}
 
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
+        synchronized (this) {
+            if (slotToCard[slot] != null) {
+                cardToSlot[slotToCard[slot]] = null;
+                slotToCard[slot] = null;
+                unindexSetsWith(slot);
+            }
+            cardToSlot[card] = slot;
+            slotToCard[slot] = card;
+            indexSetsWith(card, slot);
+            ++epoch;
+            env.journal.cardPlaced(card, slot);
+        }
         env.ui.placeCard(card, slot);
         // TODO implement
     }
@@ -120,14 +223,81 @@ public class Table {
             Thread.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {}
         if(slotToCard[slot] != null) {
-            int tempCard = slotToCard[slot];
-            slotToCard[slot] = null;
-            cardToSlot[tempCard] = null;
+            synchronized (this) {
+                int tempCard = slotToCard[slot];
+                slotToCard[slot] = null;
+                cardToSlot[tempCard] = null;
+                unindexSetsWith(slot);
+                ++epoch;
+                env.journal.cardRemoved(tempCard, slot);
+            }
             env.ui.removeCard(slot);
         }
         // TODO implement
     }
 
+    /**
+     * Places cards on the table in grid slots, as a single change: the table delay is paid once for all the cards,
+     * the claims made before are stale only once, and the user interface is updated once.
+     * @param cards - the card ids to place.
+     * @param slots - the slots in which the cards should be placed (slots[i] is the slot of cards[i]). A card already in
+     *                a slot is replaced (in the same change).
+     *
+     * @post - the cards placed are on the table, in the assigned slots.
+     */
+    public void placeCards(int[] cards, int[] slots) {
+        if (slots.length == 0) return;
+        try {
+            Thread.sleep(env.config.tableDelayMillis);
+        } catch (InterruptedException ignored) {}
+
+        synchronized (this) {
+            for (int i = 0; i < slots.length; i++) {
+                if (slotToCard[slots[i]] != null) { // replaced
+                    env.journal.cardRemoved(slotToCard[slots[i]], slots[i]);
+                    cardToSlot[slotToCard[slots[i]]] = null;
+                    slotToCard[slots[i]] = null;
+                    if (env.config.featureSize == 3) unindexSetsWith(slots[i]);
+                }
+                cardToSlot[cards[i]] = slots[i];
+                slotToCard[slots[i]] = cards[i];
+                if (env.config.featureSize == 3) indexSetsWith(cards[i], slots[i]);
+                env.journal.cardPlaced(cards[i], slots[i]);
+            }
+            if (env.config.featureSize != 3) reindexSets();
+            ++epoch;
+        }
+        env.ui.placeCards(cards, slots);
+    }
+
+    /**
+     * Removes cards from grid slots on the table, as a single change (see placeCards). Empty slots are skipped.
+     * @param slots - the slots from which to remove the cards.
+     */
+    public void removeCards(int[] slots) {
+        if (slots.length == 0) return;
+        try {
+            Thread.sleep(env.config.tableDelayMillis);
+        } catch (InterruptedException ignored) {}
+
+        int removed = 0;
+        int[] removedSlots = new int[slots.length];
+        synchronized (this) {
+            for (int slot : slots) {
+                if (slotToCard[slot] == null) continue;
+                env.journal.cardRemoved(slotToCard[slot], slot);
+                cardToSlot[slotToCard[slot]] = null;
+                slotToCard[slot] = null;
+                if (env.config.featureSize == 3) unindexSetsWith(slot);
+                removedSlots[removed++] = slot;
+            }
+            if (removed == 0) return;
+            if (env.config.featureSize != 3) reindexSets();
+            ++epoch;
+        }
+        env.ui.removeCards(removed == slots.length ? removedSlots : Arrays.copyOf(removedSlots, removed));
+    }
+
     /**
      * Places a player token on a grid slot.
      * @param player - the player the token belongs to.
@@ -136,6 +306,7 @@ public class Table {
     public Token placeToken(int player, int slot) {
         Token myToken = new Token(player, slot);
         playerToToken.get(player).add(slot);
+        env.journal.tokenPlaced(player, slot);
         env.ui.placeToken(player, slot);
         return myToken;
     }
@@ -148,7 +319,9 @@ public class Table {
      */
     public boolean removeToken(int player, int slot) {
         env.ui.removeToken(player,slot);
-        return playerToToken.get(player).remove((Integer)slot);
+        boolean removed = playerToToken.get(player).remove((Integer)slot);
+        if (removed) env.journal.tokenRemoved(player, slot);
+        return removed;
     }
 
     //added methods
@@ -159,6 +332,48 @@ public class Table {
        return playerToToken.get(player).contains(slot);
     }
 
+    /**
+     * @return - the current table epoch (changes whenever a card is placed or removed).
+     */
+    public long epoch() {
+        return epoch;
+    }
+
+    /**
+     * Submits a claim for the dealer to check.
+     */
+    public void submitClaim(Claim claim) {
+        claims.add(claim);
+    }
+
+    /**
+     * @return - the oldest claim not checked yet, or null if there is none.
+     */
+    public Claim pollClaim() {
+        return claims.poll();
+    }
+
+    /**
+     * @return - true iff there are claims waiting for the dealer.
+     */
+    public boolean hasClaims() {
+        return !claims.isEmpty();
+    }
+
+    /**
+     * Checks if a claim was made stale by changes to the table since it was made.
+     *
+     * @return - true iff one of the claimed slots does not hold the claimed card anymore.
+     */
+    public synchronized boolean isStale(Claim claim) {
+        if (claim.getEpoch() == epoch) return false;
+        for (int i = 0; i < claim.getSlots().length; ++i) {
+            Integer card = slotToCard[claim.getSlots()[i]];
+            if (card == null || card != claim.getCards()[i]) return true;
+        }
+        return false;
+    }
+
     /**
      * Finds the first empty slot in the table.
      */
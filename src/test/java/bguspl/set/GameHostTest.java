@@ -0,0 +1,43 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameHostTest {
+
+    @Test
+    void terminateGame_NotStartedYet_DisposesItsUserInterface() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "2");
+        properties.put("ComputerPlayers", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        properties.put("Hints", "False");
+        Logger logger = Logger.getLogger("GameHostTest");
+        logger.setUseParentHandlers(false);
+        GameHost host = new GameHost(logger, new Config(logger, properties), 1);
+        AtomicInteger disposed = new AtomicInteger();
+        UserInterface ui = new NullUserInterface() {
+            @Override
+            public void dispose() {
+                disposed.incrementAndGet();
+            }
+        };
+
+        host.createGame(ui); // takes the only dealer thread
+        GameHost.Game waiting = host.createGame(ui);
+        assertTrue(host.terminateGame(waiting.id));
+
+        assertEquals(1, disposed.get());
+        assertFalse(waiting.isRunning());
+        host.shutdown();
+        assertEquals(2, disposed.get());
+    }
+}
@@ -0,0 +1,111 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    private List<int[]> readAll(String prefix) throws IOException {
+        List<int[]> records = new ArrayList<>();
+        Journal.read(prefix, (nanos, type, player, slot, card, value) ->
+                records.add(new int[]{type, player, slot, card, value}));
+        return records;
+    }
+
+    @Test
+    void write_RollsOverSegments() throws IOException {
+        String prefix = directory.resolve("journal").toString();
+        Journal journal = new Journal(Logger.getLogger("JournalTest"), prefix, 2 * Journal.RECORD_BYTES);
+        journal.cardPlaced(7, 3);
+        journal.tokenPlaced(1, 3);
+        journal.claim(1, new int[]{3, 4, 5}, new int[]{7, 8, 9});
+        journal.verdict(1, 1);
+        journal.close();
+
+        assertTrue(Files.exists(directory.resolve("journal.0002")));
+        assertFalse(Files.exists(directory.resolve("journal.0003")));
+        List<int[]> records = readAll(prefix);
+        assertEquals(6, records.size());
+        assertArrayEquals(new int[]{Journal.CARD_PLACED, -1, 3, 7, -1}, records.get(0));
+        assertArrayEquals(new int[]{Journal.TOKEN_PLACED, 1, 3, -1, -1}, records.get(1));
+        assertArrayEquals(new int[]{Journal.CLAIM, 1, 5, 9, -1}, records.get(4));
+        assertArrayEquals(new int[]{Journal.VERDICT, 1, -1, -1, 1}, records.get(5));
+    }
+
+    @Test
+    void constructor_DoesNotOverwriteAnExistingJournal() throws IOException {
+        String prefix = directory.resolve("journal").toString();
+        Journal journal = new Journal(Logger.getLogger("JournalTest"), prefix, Journal.RECORD_BYTES);
+        for (int score = 1; score <= 3; ++score)
+            journal.score(0, score);
+        journal.close();
+
+        Logger logger = Logger.getLogger("JournalTest");
+        logger.setUseParentHandlers(false); // the error is expected
+        journal = new Journal(logger, prefix, Journal.RECORD_BYTES);
+        journal.freeze(0, 1000);
+        journal.close();
+        logger.setUseParentHandlers(true);
+
+        List<int[]> records = readAll(prefix);
+        assertEquals(3, records.size());
+        assertArrayEquals(new int[]{Journal.SCORE, 0, -1, -1, 3}, records.get(2));
+    }
+
+    @Test
+    void keyPressed_NoOtherEventBetweenTheKeyAndItsTokenChange() throws IOException, InterruptedException {
+        String prefix = directory.resolve("journal").toString();
+        Journal journal = new Journal(Logger.getLogger("JournalTest"), prefix, 16 * Journal.RECORD_BYTES);
+        Thread dealer = new Thread(() -> journal.cardRemoved(7, 3));
+        journal.keyPressed(1, 3, () -> {
+            dealer.start();
+            while (dealer.getState() != Thread.State.BLOCKED && dealer.isAlive())
+                Thread.yield();
+            journal.tokenPlaced(1, 3);
+        });
+        dealer.join();
+        journal.close();
+
+        List<int[]> records = readAll(prefix);
+        assertEquals(3, records.size());
+        assertArrayEquals(new int[]{Journal.KEY_PRESSED, 1, 3, -1, -1}, records.get(0));
+        assertArrayEquals(new int[]{Journal.TOKEN_PLACED, 1, 3, -1, -1}, records.get(1));
+        assertArrayEquals(new int[]{Journal.CARD_REMOVED, -1, 3, 7, -1}, records.get(2));
+    }
+
+    @Test
+    void keyPressed_NoneRunsTheChange() {
+        boolean[] changed = {false};
+        Journal.NONE.keyPressed(1, 3, () -> changed[0] = true);
+
+        assertTrue(changed[0]);
+    }
+
+    @Test
+    void uniquePrefix_SkipsExistingJournals() {
+        String prefix = directory.resolve("journal").toString();
+        String first = Journal.uniquePrefix(prefix);
+        new Journal(Logger.getLogger("JournalTest"), first, Journal.RECORD_BYTES).close();
+        String second = Journal.uniquePrefix(prefix);
+
+        assertTrue(first.startsWith(prefix + "-"));
+        assertTrue(second.startsWith(prefix + "-"));
+        assertNotEquals(first, second);
+    }
+}
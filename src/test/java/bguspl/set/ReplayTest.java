@@ -0,0 +1,98 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayTest {
+
+    @TempDir
+    Path directory;
+
+    private Config config;
+    private Table table;
+
+    /**
+     * Waits until the player may press keys on a full table with a set (or gives up after a while).
+     */
+    private void awaitTurn(Player player) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!(player.acceptsInput() && table.countCards() == config.tableSize && table.anySet())
+                && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+    }
+
+    /**
+     * @return - a slot other than those of a set of 3 (with the first two, it is not a set: only the third card of a set
+     *           completes the other two).
+     */
+    private static int otherSlot(int[] set) {
+        int slot = 0;
+        while (slot == set[0] || slot == set[1] || slot == set[2])
+            ++slot;
+        return slot;
+    }
+
+    @Test
+    void replay_SeededGameOfAPlayer_IdenticalEvents() throws IOException, InterruptedException {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "1");
+        properties.put("Seed", "12345");
+        properties.put("TurnTimeoutSeconds", "-1");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        properties.put("Hints", "False");
+        Logger logger = Logger.getLogger("ReplayTest");
+        logger.setUseParentHandlers(false);
+        config = new Config(logger, properties);
+
+        // record a game: the test presses the keys of a few sets on the table, and of one wrong claim
+        String prefix = directory.resolve("journal").toString();
+        Journal journal = new Journal(logger, prefix, config.journalSegmentBytes);
+        Env env = new Env(logger, config, new NullUserInterface(), new UtilImpl(config), journal);
+        table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        players[0] = new Player(env, dealer, table, 0, false, false);
+        Thread dealerThread = new Thread(dealer, "dealer");
+        dealerThread.start();
+        int[] slots = new int[config.featureSize];
+        for (int claim = 0; claim < 5; ++claim) {
+            awaitTurn(players[0]);
+            assertTrue(table.copySet(0, slots));
+            if (claim == 2) slots[2] = otherSlot(slots); // a wrong claim
+            for (int slot : slots)
+                players[0].keyPressed(slot);
+            long deadline = System.currentTimeMillis() + 2000;
+            while (dealer.stats().claimsVerified() == claim && System.currentTimeMillis() < deadline)
+                Thread.sleep(1);
+        }
+        awaitTurn(players[0]);
+        dealer.terminate();
+        dealerThread.join();
+        journal.close();
+
+        List<long[]> recorded = Replay.events(prefix);
+        List<long[]> replayed = Replay.replay(logger, config, recorded, true, prefix + "-replay");
+
+        assertEquals(5, dealer.stats().claimsVerified());
+        assertEquals(-1, Replay.firstDifference(recorded, replayed));
+        assertArrayEquals(new int[]{4}, Replay.scores(replayed, 1));
+        assertEquals(replayed.size(), Replay.events(prefix + "-replay").size());
+    }
+}
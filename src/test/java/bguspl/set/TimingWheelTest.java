@@ -0,0 +1,100 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private final TimingWheel wheel = new TimingWheel("test-wheel", 5, 8);
+
+    @Test
+    void schedule_FiresAfterDelay() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicLong firedAt = new AtomicLong();
+        long start = System.currentTimeMillis();
+        wheel.schedule(() -> {
+            firedAt.set(System.currentTimeMillis());
+            fired.countDown();
+        }, 100); // more than a full round of the wheel
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(firedAt.get() - start >= 100);
+    }
+
+    @Test
+    void schedule_CallbackThrows_LoggedAndLaterTimersFire() throws InterruptedException {
+        List<LogRecord> logged = new CopyOnWriteArrayList<>();
+        Logger logger = Logger.getLogger("test-wheel");
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                logged.add(record);
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        };
+        logger.setUseParentHandlers(false); // the error is expected
+        logger.addHandler(handler);
+        try {
+            wheel.schedule(() -> {
+                throw new IllegalStateException("callback");
+            }, 10);
+            CountDownLatch later = new CountDownLatch(1);
+            wheel.schedule(later::countDown, 30);
+
+            assertTrue(later.await(2, TimeUnit.SECONDS));
+            assertEquals(1, logged.size());
+            assertEquals(Level.SEVERE, logged.get(0).getLevel());
+            assertEquals("callback", logged.get(0).getThrown().getMessage());
+        } finally {
+            logger.removeHandler(handler);
+            logger.setUseParentHandlers(true);
+        }
+    }
+
+    @Test
+    void cancel_DoesNotFire() throws InterruptedException {
+        AtomicBoolean fired = new AtomicBoolean();
+        wheel.schedule(() -> fired.set(true), 20).cancel();
+
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(later::countDown, 40);
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertFalse(fired.get());
+    }
+
+    @Test
+    void countdown_ShowsEachValueOnceThenExpires() throws InterruptedException {
+        List<Long> shown = new CopyOnWriteArrayList<>();
+        CountDownLatch expired = new CountDownLatch(1);
+        wheel.countdown(System.currentTimeMillis() + 1500, 50, (millis, warn) -> {
+            assertEquals(millis <= 50, warn); // rounded up to ticks during the warning
+            shown.add(millis);
+        }, expired::countDown);
+
+        assertTrue(expired.await(3, TimeUnit.SECONDS));
+        assertEquals(2000L, (long) shown.get(0));
+        assertEquals(1000L, (long) shown.get(1));
+        assertEquals(0L, (long) shown.get(shown.size() - 1));
+        for (int i = 1; i < shown.size(); ++i)
+            assertTrue(shown.get(i) < shown.get(i - 1));
+    }
+}
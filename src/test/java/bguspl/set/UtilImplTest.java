@@ -0,0 +1,178 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    UtilImpl util;
+    Config config;
+
+    @BeforeEach
+    void setUp() {
+        config = createConfig(3, 4);
+        util = new UtilImpl(config);
+    }
+
+    private static Config createConfig(int featureSize, int featureCount) {
+        return createConfig(featureSize, featureCount, Integer.MAX_VALUE);
+    }
+
+    private static Config createConfig(int featureSize, int featureCount, int parallelSearchThreshold) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("ParallelSearchThreshold", Integer.toString(parallelSearchThreshold));
+        return new Config(new MockLogger(), properties);
+    }
+
+    private static List<Integer> fullDeck(Config config) {
+        return IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    void cardToFeatures_MatchesCardId() {
+        int[] features = new int[config.featureCount];
+        for (int card = 0; card < config.deckSize; ++card) {
+            util.cardToFeatures(card, features);
+            int id = 0;
+            for (int i = 0; i < config.featureCount; ++i) {
+                assertEquals(features[i], util.feature(card, i));
+                id = id * config.featureSize + features[i];
+            }
+            assertEquals(card, id);
+            assertArrayEquals(features, util.cardToFeatures(card));
+        }
+    }
+
+    @Test
+    void completeSet_FormsLegalSet() {
+        for (int first = 0; first < config.deckSize; ++first)
+            for (int second = 0; second < config.deckSize; ++second) {
+                if (first == second) continue;
+                int third = util.completeSet(first, second);
+                assertTrue(third != first && third != second);
+                assertTrue(util.testSet(new int[]{first, second, third}));
+            }
+    }
+
+    @Test
+    void findSets_FullDeck() {
+        List<int[]> sets = util.findSets(fullDeck(config), Integer.MAX_VALUE);
+
+        // there are 1080 sets in the classic 81 cards deck
+        assertEquals(1080, sets.size());
+        for (int[] set : sets)
+            assertTrue(util.testSet(set));
+    }
+
+    @Test
+    void findSets_StopsAtCount() {
+        assertEquals(1, util.findSets(fullDeck(config), 1).size());
+    }
+
+    @Test
+    void findSets_NoSets() {
+        // 0, 1 and 3 differ in a single feature each, so no 3 of them are "all same or all different"
+        assertEquals(0, util.findSets(IntStream.of(0, 1, 3, 4).boxed().collect(Collectors.toList()), 1).size());
+        assertFalse(util.testSet(new int[]{0, 1, 3}));
+    }
+
+    @Test
+    void testSet_MatchesFeatures() {
+        for (int a = 0; a < config.deckSize; ++a)
+            for (int b = a + 1; b < config.deckSize; ++b)
+                for (int c = b + 1; c < config.deckSize; c += 7) {
+                    int[][] features = util.cardsToFeatures(new int[]{a, b, c});
+                    boolean legal = true;
+                    for (int i = 0; i < config.featureCount; ++i)
+                        legal &= (features[0][i] + features[1][i] + features[2][i]) % 3 == 0;
+                    assertEquals(legal, util.testSet(new int[]{a, b, c}));
+                }
+    }
+
+    @Test
+    void testSet_FeatureSizeFour() {
+        UtilImpl util = new UtilImpl(createConfig(4, 2));
+
+        assertTrue(util.testSet(new int[]{0, 5, 10, 15}));
+        assertTrue(util.testSet(new int[]{0, 1, 2, 3}));
+        assertFalse(util.testSet(new int[]{0, 1, 2, 4}));
+    }
+
+    @Test
+    void findSets_Parallel() {
+        Config config = createConfig(3, 4, 0);
+        UtilImpl util = new UtilImpl(config);
+
+        List<int[]> sets = util.findSets(fullDeck(config), Integer.MAX_VALUE);
+        assertEquals(1080, sets.size());
+        for (int[] set : sets)
+            assertTrue(util.testSet(set));
+        assertEquals(5, util.findSets(fullDeck(config), 5).size());
+    }
+
+    @Test
+    void findSets_ParallelFeatureSizeFour() {
+        Config config = createConfig(4, 2, 0);
+        List<int[]> sets = new UtilImpl(config).findSets(fullDeck(config), Integer.MAX_VALUE);
+
+        // 4 + 4 sets with one feature fixed, and 4! sets where both features are all different
+        assertEquals(32, sets.size());
+        assertEquals(32, new UtilImpl(createConfig(4, 2)).findSets(fullDeck(config), Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void findSets_PrunedSearchMatchesTestSet() {
+        Config config = createConfig(4, 3);
+        UtilImpl util = new UtilImpl(config);
+
+        int expected = 0;
+        for (int a = 0; a < config.deckSize; ++a)
+            for (int b = a + 1; b < config.deckSize; ++b)
+                for (int c = b + 1; c < config.deckSize; ++c)
+                    for (int d = c + 1; d < config.deckSize; ++d)
+                        if (util.testSet(new int[]{a, b, c, d})) ++expected;
+
+        List<int[]> sets = util.findSets(fullDeck(config), Integer.MAX_VALUE);
+        assertEquals(expected, sets.size());
+        for (int[] set : sets)
+            assertTrue(util.testSet(set));
+    }
+
+    @Test
+    void setCursor_ReusesBuffer() {
+        SetCursor cursor = util.setCursor(fullDeck(config));
+        int[] set = new int[cursor.setSize()];
+        int sets = 0;
+        while (cursor.next(set)) {
+            assertTrue(util.testSet(set));
+            ++sets;
+        }
+        assertEquals(1080, sets);
+        assertFalse(cursor.next(set));
+    }
+
+    @Test
+    void streamSets_IsLazy() {
+        assertEquals(3, util.streamSets(fullDeck(config)).limit(3).count());
+        assertEquals(1080, util.streamSets(fullDeck(config)).parallel().filter(util::testSet).count());
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DealerTest {
+
+    private Properties properties;
+    private Env env;
+    private Table table;
+    private Player[] players;
+    private Dealer dealer;
+    private Thread dealerThread;
+
+    @BeforeEach
+    void setUp() {
+        properties = new Properties();
+        properties.put("TurnTimeoutSeconds", "-1");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        properties.put("HumanPlayers", "2");
+        properties.put("ComputerPlayers", "0");
+        properties.put("Hints", "False");
+        configure();
+    }
+
+    /**
+     * Creates the game objects from the properties (call again after changing them).
+     */
+    private void configure() {
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+        players = new Player[config.players];
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dealer.terminate();
+        dealerThread.join();
+    }
+
+    /**
+     * Starts a game of human players (they press no keys in the test).
+     */
+    private void startGame(long seed) {
+        dealer = new Dealer(env, table, players, seed);
+        for (int i = 0; i < players.length; ++i)
+            players[i] = new Player(env, dealer, table, i, true);
+        dealerThread = new Thread(dealer, "dealer");
+        dealerThread.start();
+    }
+
+    /**
+     * @return - a seed whose first deal has no legal set.
+     */
+    private long seedWithoutSetInFirstDeal() {
+        for (long seed = 1; ; ++seed) {
+            Deck deck = new Deck(env.config.deckSize, new Random(seed));
+            deck.shuffle();
+            List<Integer> cards = new ArrayList<>();
+            for (int i = 0; i < env.config.tableSize; ++i)
+                cards.add(deck.draw());
+            if (env.util.findSets(cards, 1).isEmpty()) return seed;
+        }
+    }
+
+    /**
+     * Waits until the dealer waits for claims on a full table with a set (or gives up after a while).
+     */
+    private void awaitDeal() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!(table.countCards() == env.config.tableSize && table.anySet() && waiting(dealerThread))
+                && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+    }
+
+    /**
+     * @return - the cards on the table, sorted (when the dealer waits for claims on a full table after the given number
+     *           of reshuffles, or null if the table does not settle in time).
+     */
+    private List<Integer> tableAfterReshuffles(long reshuffles) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (System.currentTimeMillis() < deadline) {
+            if (dealer.stats().reshuffles() == reshuffles && table.countCards() == env.config.tableSize
+                    && waiting(dealerThread)) {
+                List<Integer> cards = new ArrayList<>();
+                for (Integer card : table.slotToCard)
+                    if (card != null) cards.add(card);
+                Collections.sort(cards);
+                // a consistent snapshot: the table was not dealt again meanwhile
+                if (cards.size() == env.config.tableSize && dealer.stats().reshuffles() == reshuffles) return cards;
+            }
+            Thread.sleep(1);
+        }
+        return null;
+    }
+
+    private static boolean waiting(Thread thread) {
+        Thread.State state = thread.getState();
+        return state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING;
+    }
+
+    @Test
+    void run_WithoutTurnTimeout_DealsASetWhenTheFirstDealHasNone() throws InterruptedException {
+        startGame(seedWithoutSetInFirstDeal());
+        awaitDeal();
+
+        assertEquals(env.config.tableSize, table.countCards());
+        assertTrue(table.anySet());
+    }
+
+    @Test
+    void run_TurnTimeout_DealsADifferentTable() throws InterruptedException {
+        properties.put("TurnTimeoutSeconds", "0.2");
+        configure();
+        startGame(42);
+
+        List<Integer> first = tableAfterReshuffles(0);
+        List<Integer> second = tableAfterReshuffles(1);
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void checkClaims_InTheOrderTheyWereMade_LaterClaimOfTheSameSetIsStale() throws InterruptedException {
+        startGame(1);
+        awaitDeal();
+        int[] slots = new int[env.config.featureSize];
+        assertTrue(table.copySet(0, slots));
+        int[] cards = new int[slots.length];
+        for (int i = 0; i < slots.length; ++i)
+            cards[i] = table.slotToCard[slots[i]];
+
+        // player 0 submits first, but player 1 made the claim first
+        long epoch = table.epoch(), now = System.nanoTime();
+        table.submitClaim(new Claim(0, slots, cards, now, epoch));
+        table.submitClaim(new Claim(1, slots, cards, now - 1, epoch));
+        dealer.wakeUp();
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (dealer.stats().staleClaims() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        while (players[1].score() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        assertEquals(1, dealer.stats().claimsVerified());
+        assertEquals(1, dealer.stats().staleClaims()); // rejected without a penalty
+        assertEquals(1, players[1].score());
+        assertEquals(0, players[0].score());
+    }
+}
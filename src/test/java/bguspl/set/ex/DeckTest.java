@@ -0,0 +1,80 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeckTest {
+
+    Deck deck;
+
+    @BeforeEach
+    void setUp() {
+        deck = new Deck(81, new Random(1));
+    }
+
+    @Test
+    void shuffle_KeepsAllCards() {
+        deck.shuffle();
+
+        int[] cards = deck.toArray();
+        Arrays.sort(cards);
+        assertArrayEquals(IntStream.range(0, 81).toArray(), cards);
+    }
+
+    @Test
+    void shuffle_SameSeedSameOrder() {
+        Deck other = new Deck(81, new Random(1));
+        deck.shuffle();
+        other.shuffle();
+
+        assertArrayEquals(deck.toArray(), other.toArray());
+    }
+
+    @Test
+    void drawAndAdd() {
+        deck.shuffle();
+        int card = deck.draw();
+
+        assertEquals(80, deck.size());
+        assertFalse(deck.contains(card));
+
+        deck.add(card);
+        assertEquals(81, deck.size());
+        assertTrue(deck.contains(card));
+        assertEquals(card, deck.draw());
+    }
+
+    @Test
+    void remove_TakesSpecificCard() {
+        assertTrue(deck.remove(5));
+        assertFalse(deck.remove(5));
+        assertFalse(deck.contains(5));
+        assertEquals(80, deck.size());
+
+        for (int card = 0; card < 81; ++card)
+            if (card != 5) assertTrue(deck.contains(card));
+    }
+
+    @Test
+    void insert_KeepsAllCards() {
+        deck.shuffle();
+        int card = deck.draw();
+        deck.insert(card);
+
+        assertEquals(81, deck.size());
+        assertTrue(deck.contains(card));
+        int[] cards = deck.toArray();
+        Arrays.sort(cards);
+        assertArrayEquals(IntStream.range(0, 81).toArray(), cards);
+        assertTrue(deck.remove(card));
+    }
+}
@@ -14,6 +14,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -23,6 +24,7 @@ import static org.mockito.Mockito.when;
 class PlayerTest {
 
     Player player;
+    Env env;
     @Mock
     Util util;
     @Mock
@@ -42,7 +44,7 @@ class PlayerTest {
     @BeforeEach
     void setUp() {
         // purposely do not find the configuration files (use defaults here).
-        Env env = new Env(logger, new Config(logger, (String) null), ui, util);
+        env = new Env(logger, new Config(logger, (String) null), ui, util);
         player = new Player(env, dealer, table, 0, false);
         assertInvariants();
     }
@@ -70,4 +72,33 @@ class PlayerTest {
         // check that ui.setScore was called with the player's id and the correct score
         verify(ui).setScore(eq(player.id), eq(expectedScore));
     }
-}
\ No newline at end of file
+
+    @Test
+    void penalty_DropsKeyPressesUntilDeadline() {
+        assertTrue(player.keyPressed(0));
+
+        player.penalty();
+
+        assertFalse(player.keyPressed(1));
+        verify(ui).setFreeze(eq(player.id), eq(3000L));
+    }
+
+    @Test
+    void simulateKeyPress_NotWhileFrozenAwaitingAVerdictOrWithTooManyPendingKeys() {
+        Player bot = new Player(env, dealer, table, 1, false);
+        for (int i = 0; i < Player.MAX_PENDING_KEYS; i++)
+            assertTrue(bot.simulateKeyPress());
+        assertFalse(bot.simulateKeyPress());
+
+        bot = new Player(env, dealer, table, 2, false);
+        when(dealer.stats()).thenReturn(new GameStats());
+        bot.notifyDealer(); // no tokens: an empty claim
+        assertFalse(bot.simulateKeyPress());
+        bot.claimDecided();
+        assertTrue(bot.simulateKeyPress());
+
+        bot = new Player(env, dealer, table, 3, false);
+        bot.claimRejected();
+        assertFalse(bot.simulateKeyPress());
+    }
+}
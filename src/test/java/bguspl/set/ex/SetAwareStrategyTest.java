@@ -0,0 +1,74 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SetAwareStrategyTest {
+
+    private Env env;
+    private Table table;
+    private Player player;
+    private SetAwareStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "3");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "1");
+        properties.put("ComputerStrategy", "sets");
+        properties.put("ComputerSetProbability", "1");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+        player = new Player(env, null, table, 0, false);
+        strategy = (SetAwareStrategy) ComputerStrategy.create(env, table, player);
+
+        // cards 0, 1 and 2 differ only in the last feature, which is all different (the only set on the table)
+        table.placeCards(new int[]{0, 1, 5, 2, 9, 10}, new int[]{0, 1, 2, 3, 4, 5});
+    }
+
+    @Test
+    void nextKey_PressesTheSlotsOfTheSet() {
+        int[] keys = {strategy.nextKey(), strategy.nextKey(), strategy.nextKey()};
+        Arrays.sort(keys);
+        assertArrayEquals(new int[]{0, 1, 3}, keys);
+    }
+
+    @Test
+    void nextKey_RemovesTokensOutsideTheSetFirst() {
+        player.myTokensQueue.add(2);
+        player.myTokensQueue.add(0);
+
+        assertEquals(2, strategy.nextKey());
+        int[] keys = {strategy.nextKey(), strategy.nextKey()};
+        Arrays.sort(keys);
+        assertArrayEquals(new int[]{1, 3}, keys);
+    }
+
+    @Test
+    void nextKey_PlansWhenCreatedWithAFullHand() {
+        player.myTokensQueue.add(2);
+        player.myTokensQueue.add(4);
+        player.myTokensQueue.add(5);
+        SetAwareStrategy strategy = (SetAwareStrategy) ComputerStrategy.create(env, table, player);
+
+        int[] keys = new int[6];
+        for (int i = 0; i < keys.length; ++i)
+            keys[i] = strategy.nextKey();
+        Arrays.sort(keys, 3, 6);
+        assertArrayEquals(new int[]{2, 4, 5, 0, 1, 3}, keys);
+    }
+}
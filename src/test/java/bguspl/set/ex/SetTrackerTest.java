@@ -0,0 +1,81 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetTrackerTest {
+
+    SetTracker tracker;
+    Env env;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "2");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        tracker = new SetTracker(env);
+    }
+
+    @Test
+    void setsWith_FullDeck() {
+        // in a deck of 9 cards every card is in 4 sets (its 8 pairs, each set counted by 2 of them)
+        for (int card = 0; card < env.config.deckSize; ++card)
+            assertEquals(4, tracker.setsWith(card));
+        assertTrue(tracker.anySet());
+    }
+
+    @Test
+    void remove_FullDeckOf81_CountsEverySetOnce() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        tracker = new SetTracker(new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config)));
+        for (int card = 0; card < config.deckSize; ++card)
+            assertEquals(40, tracker.setsWith(card));
+
+        // removing the cards one by one removes exactly the 1080 sets counted for the full deck: the last 3 cards
+        // (2220, 2221 and 2222 in base 3) are the only set left
+        for (int card = 0; card < config.deckSize - 3; ++card)
+            tracker.remove(card);
+        assertTrue(tracker.anySet());
+        assertEquals(1, tracker.setsWith(config.deckSize - 1));
+
+        tracker.remove(config.deckSize - 1);
+        assertFalse(tracker.anySet());
+    }
+
+    @Test
+    void remove_UpdatesCounters() {
+        tracker.remove(0);
+
+        assertEquals(0, tracker.setsWith(0));
+        // every other card was in exactly one set with card 0
+        for (int card = 1; card < env.config.deckSize; ++card)
+            assertEquals(3, tracker.setsWith(card));
+    }
+
+    @Test
+    void anySet_NoSetsLeft() {
+        // removing the cards of the first two rows leaves only 6, 7 and 8 (which form a set)
+        for (int card = 0; card < 6; ++card)
+            tracker.remove(card);
+        assertTrue(tracker.anySet());
+
+        tracker.remove(8);
+        assertFalse(tracker.anySet());
+    }
+}
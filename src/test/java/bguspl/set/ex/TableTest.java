@@ -2,20 +2,28 @@ package bguspl.set.ex;
 
 import bguspl.set.Config;
 import bguspl.set.Env;
+import bguspl.set.SetCursor;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
     Table table;
+    private Config config;
     private Integer[] slotToCard;
     private Integer[] cardToSlot;
 
@@ -31,7 +39,7 @@ class TableTest {
         properties.put("PlayerKeys1", "81,87,69,82");
         properties.put("PlayerKeys2", "85,73,79,80");
         MockLogger logger = new MockLogger();
-        Config config = new Config(logger, properties);
+        config = new Config(logger, properties);
         slotToCard = new Integer[config.tableSize];
         cardToSlot = new Integer[config.deckSize];
 
@@ -95,6 +103,83 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void setCount_UpdatedOnPlaceAndRemove() {
+        Env env = new Env(new MockLogger(), config, new MockUserInterface(), new UtilImpl(config));
+        table = new Table(env, slotToCard, cardToSlot);
+
+        // cards 0, 1 and 2 differ only in the last feature, which is all different
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        assertFalse(table.anySet());
+        table.placeCard(2, 2);
+        assertEquals(1, table.setCount());
+
+        int[] slots = new int[3];
+        assertTrue(table.copySet(0, slots));
+        Arrays.sort(slots);
+        assertArrayEquals(new int[]{0, 1, 2}, slots);
+
+        table.removeCard(1);
+        assertEquals(0, table.setCount());
+        assertFalse(table.copySet(0, slots));
+    }
+
+    @Test
+    void placeCards_ThenRemoveCards() {
+        Env env = new Env(new MockLogger(), config, new MockUserInterface(), new UtilImpl(config));
+        table = new Table(env, slotToCard, cardToSlot);
+
+        table.placeCards(new int[]{0, 1, 2, 5}, new int[]{3, 0, 1, 2});
+        assertEquals(4, table.countCards());
+        assertEquals(1, (int) cardToSlot[2]);
+        assertEquals(5, (int) slotToCard[2]);
+        assertEquals(1, table.setCount());
+
+        long epoch = table.epoch();
+        table.removeCards(new int[]{0, 2});
+        table.removeCards(new int[]{0});
+        assertEquals(2, table.countCards());
+        assertNull(slotToCard[0]);
+        assertNull(cardToSlot[1]);
+        assertEquals(0, table.setCount());
+        assertEquals(epoch + 1, table.epoch()); // removing from an empty slot changes nothing
+    }
+
+    @Test
+    void pollClaim_InSubmissionOrder() {
+        Claim first = new Claim(1, new int[]{0, 1, 2}, new int[]{0, 1, 2}, 2, table.epoch());
+        Claim second = new Claim(0, new int[]{0, 1, 2}, new int[]{0, 1, 2}, 1, table.epoch());
+        table.submitClaim(first);
+        table.submitClaim(second);
+
+        assertTrue(table.hasClaims());
+        assertEquals(first, table.pollClaim());
+        assertEquals(second, table.pollClaim());
+        assertNull(table.pollClaim());
+        assertFalse(table.hasClaims());
+    }
+
+    @Test
+    void isStale_OnlyWhenAClaimedCardChanged() {
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(2, 2);
+        Claim claim = new Claim(0, new int[]{0, 1, 2}, new int[]{0, 1, 2}, System.nanoTime(), table.epoch());
+        assertFalse(table.isStale(claim));
+
+        table.placeCard(5, 3);
+        assertFalse(table.isStale(claim)); // the table changed, but not the claimed cards
+
+        table.removeCard(1);
+        assertTrue(table.isStale(claim));
+        table.placeCard(1, 1);
+        assertFalse(table.isStale(claim)); // the same card is back in the slot
+        table.removeCard(1);
+        table.placeCard(4, 1);
+        assertTrue(table.isStale(claim));
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -103,6 +188,10 @@ class TableTest {
         @Override
         public void removeCard(int slot) {}
         @Override
+        public void placeCards(int[] cards, int[] slots) {}
+        @Override
+        public void removeCards(int[] slots) {}
+        @Override
         public void setCountdown(long millies, boolean warn) {}
         @Override
         public void setElapsed(long millies) {}
@@ -128,6 +217,14 @@ class TableTest {
             return new int[0];
         }
 
+        @Override
+        public void cardToFeatures(int card, int[] features) {}
+
+        @Override
+        public int feature(int card, int feature) {
+            return 0;
+        }
+
         @Override
         public int[][] cardsToFeatures(int[] cards) {
             return new int[0][];
@@ -143,6 +240,16 @@ class TableTest {
             return null;
         }
 
+        @Override
+        public SetCursor setCursor(List<Integer> deck) {
+            return null;
+        }
+
+        @Override
+        public int completeSet(int first, int second) {
+            return -1;
+        }
+
         @Override
         public void spin() {}
     }